@@ -0,0 +1,87 @@
+package com.hicham.annotationplatformproject1.config;
+
+import com.hicham.annotationplatformproject1.service.ActivityLogService;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Makes sure the annotation table has its (pair, annotator) unique constraint. Annotation inserts rely
+ * on it to reject a second annotation of the same pair, but ddl-auto=update only logs the ALTER when
+ * the table already holds duplicates, and keeps going without it. On startup, when the constraint is
+ * missing, duplicates are removed (keeping the first annotation of each pair and annotator) and the
+ * constraint is added; if it still cannot be added, startup fails.
+ */
+@Component
+public class AnnotationConstraintInitializer {
+
+    private static final String CONSTRAINT = "uk_annotation_pair_annotator";
+    private static final Set<String> COLUMNS = Set.of("coupe_texte_id", "annotateur_id");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActivityLogService activityLogService;
+
+    // The EntityManagerFactory is only taken so that Hibernate has updated the schema first
+    public AnnotationConstraintInitializer(JdbcTemplate jdbcTemplate,
+                                           ActivityLogService activityLogService,
+                                           EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.activityLogService = activityLogService;
+    }
+
+    @PostConstruct
+    public void ensureUniqueConstraint() {
+        if (hasUniqueConstraint()) return;
+
+        int removed = jdbcTemplate.update(
+                "DELETE FROM annotation WHERE id NOT IN (SELECT id FROM (" +
+                        "SELECT MIN(id) AS id FROM annotation GROUP BY coupe_texte_id, annotateur_id) AS kept)");
+        if (removed > 0) {
+            activityLogService.logActivity(
+                    "ANNOTATION_DUPLICATES_REMOVED",
+                    "Removed " + removed + " duplicate annotations before adding " + CONSTRAINT
+            );
+        }
+        try {
+            jdbcTemplate.execute("ALTER TABLE annotation ADD CONSTRAINT " + CONSTRAINT +
+                    " UNIQUE (coupe_texte_id, annotateur_id)");
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not add " + CONSTRAINT + " to the annotation table", e);
+        }
+        if (!hasUniqueConstraint()) {
+            throw new IllegalStateException("The annotation table has no " + CONSTRAINT + " constraint");
+        }
+    }
+
+    /**
+     * Whether a unique index covers exactly (coupe_texte_id, annotateur_id), whatever its name.
+     */
+    boolean hasUniqueConstraint() {
+        Boolean found = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Map<String, Set<String>> columnsByIndex = new HashMap<>();
+            for (String table : new String[]{"annotation", "ANNOTATION"}) {
+                try (ResultSet indexes = metaData.getIndexInfo(connection.getCatalog(), null, table, true, false)) {
+                    while (indexes.next()) {
+                        String index = indexes.getString("INDEX_NAME");
+                        String column = indexes.getString("COLUMN_NAME");
+                        if (index != null && column != null) {
+                            columnsByIndex.computeIfAbsent(index, name -> new HashSet<>()).add(column.toLowerCase());
+                        }
+                    }
+                }
+            }
+            return columnsByIndex.containsValue(COLUMNS);
+        });
+        return Boolean.TRUE.equals(found);
+    }
+}
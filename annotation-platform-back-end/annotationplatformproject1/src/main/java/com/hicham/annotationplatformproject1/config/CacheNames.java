@@ -0,0 +1,17 @@
+package com.hicham.annotationplatformproject1.config;
+
+/**
+ * Names of the shared (Redis) caches.
+ */
+public final class CacheNames {
+
+    public static final String DATASETS = "datasets";               // getAllDatasets pages, key "page:size"
+    public static final String DATASET_DETAILS = "datasetDetails"; // key dataset ID
+    public static final String ANNOTATORS = "annotators";           // getAllAnnotators, single entry
+    public static final String LABEL_SETS = "labelSets";            // key dataset ID, two-level
+    public static final String USERS = "users";                     // credentials by username, local only (never in Redis)
+    public static final String DATASET_HEADERS = "datasetHeaders";  // ID, name and description by dataset ID, two-level
+
+    private CacheNames() {
+    }
+}
@@ -1,29 +1,94 @@
 package com.hicham.annotationplatformproject1.config;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.annotation.CachingConfigurer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.CacheErrorHandler;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.List;
 
-public class RedisConfig {
+/**
+ * Shared caches. With spring.cache.type=redis the cache manager below stores entries in Redis with a
+ * TTL per cache and records hit/miss statistics (published as cache.gets metrics); label sets and
+ * dataset headers also get a local tier (see TwoLevelCacheManager), and users (password hashes) are
+ * only cached locally. Other cache types (e.g.
+ * "simple" in tests) use Spring Boot's default manager. Redis failures are treated as misses so
+ * that an unavailable Redis slows reads down instead of failing them.
+ */
+@Configuration
+@EnableCaching
+public class RedisConfig implements CachingConfigurer {
+
+    private final Counter cacheErrors;
+
+    public RedisConfig(MeterRegistry meterRegistry) {
+        this.cacheErrors = Counter.builder("cache.errors")
+                .description("Cache operations that failed and fell back to the database")
+                .register(meterRegistry);
+    }
 
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory) {
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                             StringRedisTemplate stringRedisTemplate,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${cache.ttl.default:10m}") Duration defaultTtl,
+                                             @Value("${cache.ttl.datasets:5m}") Duration datasetsTtl,
+                                             @Value("${cache.ttl.dataset-details:10m}") Duration datasetDetailsTtl,
+                                             @Value("${cache.ttl.annotators:10m}") Duration annotatorsTtl,
+                                             @Value("${cache.ttl.label-sets:1h}") Duration labelSetsTtl,
+                                             @Value("${cache.ttl.dataset-headers:1h}") Duration datasetHeadersTtl,
+                                             @Value("${cache.local.max-size:10000}") long localMaxSize,
+                                             @Value("${cache.local.ttl:60s}") Duration localTtl) {
         RedisCacheConfiguration cacheConfiguration = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10))
+                .entryTtl(defaultTtl)
+                .disableCachingNullValues()
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(
                         new GenericJackson2JsonRedisSerializer()));
 
-        return RedisCacheManager.builder(redisConnectionFactory)
+        // SCAN instead of KEYS when a whole cache is cleared, so clearing never blocks Redis
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(RedisCacheWriter.nonLockingRedisCacheWriter(
+                        redisConnectionFactory, BatchStrategies.scan(1000)))
                 .cacheDefaults(cacheConfiguration)
+                .withCacheConfiguration(CacheNames.DATASETS, cacheConfiguration.entryTtl(datasetsTtl))
+                .withCacheConfiguration(CacheNames.DATASET_DETAILS, cacheConfiguration.entryTtl(datasetDetailsTtl))
+                .withCacheConfiguration(CacheNames.ANNOTATORS, cacheConfiguration.entryTtl(annotatorsTtl))
+                .withCacheConfiguration(CacheNames.LABEL_SETS, cacheConfiguration.entryTtl(labelSetsTtl))
+                .withCacheConfiguration(CacheNames.DATASET_HEADERS, cacheConfiguration.entryTtl(datasetHeadersTtl))
+                .enableStatistics()
                 .build();
+        return new TwoLevelCacheManager(redisCacheManager,
+                List.of(CacheNames.LABEL_SETS, CacheNames.DATASET_HEADERS), List.of(CacheNames.USERS),
+                localMaxSize, localTtl, stringRedisTemplate, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "spring.cache.type", havingValue = "redis")
+    public RedisMessageListenerContainer cacheInvalidationListener(RedisConnectionFactory redisConnectionFactory,
+                                                                   TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        return container;
     }
 
     @Bean
@@ -34,4 +99,29 @@ public class RedisConfig {
         template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
         return template;
     }
-}
\ No newline at end of file
+
+    @Override
+    public CacheErrorHandler errorHandler() {
+        return new CacheErrorHandler() {
+            @Override
+            public void handleCacheGetError(RuntimeException exception, Cache cache, Object key) {
+                cacheErrors.increment();
+            }
+
+            @Override
+            public void handleCachePutError(RuntimeException exception, Cache cache, Object key, Object value) {
+                cacheErrors.increment();
+            }
+
+            @Override
+            public void handleCacheEvictError(RuntimeException exception, Cache cache, Object key) {
+                cacheErrors.increment();
+            }
+
+            @Override
+            public void handleCacheClearError(RuntimeException exception, Cache cache) {
+                cacheErrors.increment();
+            }
+        };
+    }
+}
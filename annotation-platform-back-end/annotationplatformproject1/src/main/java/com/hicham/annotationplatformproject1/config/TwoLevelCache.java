@@ -0,0 +1,161 @@
+package com.hicham.annotationplatformproject1.config;
+
+import io.micrometer.core.instrument.Counter;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Cache with a bounded in-process tier (L1) in front of a shared Redis tier (L2).
+ * Reads try L1, then L2, then the loader, filling the tiers on the way back. Evictions drop both
+ * tiers and are announced to the other nodes, which drop their L1 entry; puts are cache fills and are
+ * not announced. L2 failures are counted and handled as misses, so L1 keeps serving while Redis is down.
+ * L1 keys are the string form of the keys, as in Redis. Without an L2 the cache is local only: values
+ * never leave the process, evictions are still announced.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final Cache remote; // null when local only
+    private final Consumer<String> invalidationPublisher;
+    private final Counter cacheErrors;
+
+    /**
+     * @param remote                The shared tier, or null to keep values in this process only.
+     * @param invalidationPublisher Announces an evicted key to the other nodes (null for a clear).
+     */
+    public TwoLevelCache(String name, com.github.benmanes.caffeine.cache.Cache<String, Object> local, Cache remote,
+                         Consumer<String> invalidationPublisher, Counter cacheErrors) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationPublisher = invalidationPublisher;
+        this.cacheErrors = cacheErrors;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = String.valueOf(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            return new SimpleValueWrapper(value);
+        }
+        ValueWrapper wrapper = getRemote(key);
+        if (wrapper != null && wrapper.get() != null) {
+            local.put(localKey, wrapper.get());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        // Null values are neither cached nor shared
+        return (T) local.get(String.valueOf(key), localKey -> {
+            ValueWrapper wrapper = getRemote(key);
+            if (wrapper != null && wrapper.get() != null) {
+                return wrapper.get();
+            }
+            T value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            if (value != null) {
+                putRemote(key, value);
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        putRemote(key, value);
+        local.put(String.valueOf(key), value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        if (remote != null) {
+            try {
+                remote.evict(key);
+            } catch (RuntimeException e) {
+                cacheErrors.increment();
+            }
+        }
+        local.invalidate(String.valueOf(key));
+        invalidationPublisher.accept(String.valueOf(key));
+    }
+
+    @Override
+    public void clear() {
+        if (remote != null) {
+            try {
+                remote.clear();
+            } catch (RuntimeException e) {
+                cacheErrors.increment();
+            }
+        }
+        local.invalidateAll();
+        invalidationPublisher.accept(null);
+    }
+
+    /**
+     * Drops an L1 entry after another node evicted it.
+     */
+    void evictLocal(String key) {
+        local.invalidate(key);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    private ValueWrapper getRemote(Object key) {
+        if (remote == null) return null;
+        try {
+            return remote.get(key);
+        } catch (RuntimeException e) {
+            cacheErrors.increment();
+            return null;
+        }
+    }
+
+    private void putRemote(Object key, Object value) {
+        if (remote == null) return;
+        try {
+            remote.put(key, value);
+        } catch (RuntimeException e) {
+            cacheErrors.increment();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.hicham.annotationplatformproject1.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.boot.actuate.metrics.cache.RedisCacheMetrics;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Redis cache manager whose hottest caches get a local tier (see TwoLevelCache); the other caches are
+ * served by Redis alone. Local-only caches hold what must not be shared (e.g. password hashes) in
+ * this process and never write to Redis. Evictions are published on the cache-invalidation channel so every node drops
+ * its local copy, and the local TTL bounds staleness when a message is lost. Hits, misses and evictions
+ * are published per tier as cache.* metrics tagged tier=local or tier=redis.
+ */
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    public static final String INVALIDATION_CHANNEL = "cache-invalidation";
+
+    private final RedisCacheManager remote;
+    private final StringRedisTemplate redisTemplate;
+    private final Counter cacheErrors;
+    private final Map<String, TwoLevelCache> twoLevelCaches = new HashMap<>();
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public TwoLevelCacheManager(RedisCacheManager remote, Collection<String> twoLevelCacheNames,
+                                Collection<String> localOnlyCacheNames, long localMaxSize, Duration localTtl,
+                                StringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.redisTemplate = redisTemplate;
+        this.cacheErrors = meterRegistry.counter("cache.errors");
+        remote.initializeCaches();
+
+        for (String name : twoLevelCacheNames) {
+            Cache shared = remote.getCache(name);
+            if (shared instanceof RedisCache redisCache) {
+                new RedisCacheMetrics(redisCache, Tags.of("name", name, "tier", "redis")).bindTo(meterRegistry);
+            }
+            addCache(name, shared, localMaxSize, localTtl, meterRegistry);
+        }
+        for (String name : localOnlyCacheNames) {
+            addCache(name, null, localMaxSize, localTtl, meterRegistry);
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        TwoLevelCache cache = twoLevelCaches.get(name);
+        return cache != null ? cache : remote.getCache(name);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        Set<String> names = new LinkedHashSet<>(remote.getCacheNames());
+        names.addAll(twoLevelCaches.keySet());
+        return Collections.unmodifiableSet(names);
+    }
+
+    /**
+     * Drops the local entries another node evicted. Messages are "nodeId\tcacheName[\tkey]".
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\t", 3);
+        if (parts.length < 2 || parts[0].equals(nodeId)) return;
+
+        TwoLevelCache cache = twoLevelCaches.get(parts[1]);
+        if (cache == null) return;
+        if (parts.length == 3) {
+            cache.evictLocal(parts[2]);
+        } else {
+            cache.clearLocal();
+        }
+    }
+
+    private void addCache(String name, Cache shared, long localMaxSize, Duration localTtl, MeterRegistry meterRegistry) {
+        com.github.benmanes.caffeine.cache.Cache<String, Object> local = Caffeine.newBuilder()
+                .maximumSize(localMaxSize)
+                .expireAfterWrite(localTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, local, name, Tags.of("name", name, "tier", "local"));
+        twoLevelCaches.put(name, new TwoLevelCache(name, local, shared, key -> publish(name, key), cacheErrors));
+    }
+
+    private void publish(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATION_CHANNEL,
+                    nodeId + "\t" + cacheName + (key != null ? "\t" + key : ""));
+        } catch (RuntimeException e) {
+            cacheErrors.increment(); // Other nodes keep their copy until the local TTL expires
+        }
+    }
+}
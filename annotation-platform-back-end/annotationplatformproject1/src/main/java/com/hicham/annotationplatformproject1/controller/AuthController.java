@@ -6,6 +6,7 @@ import com.hicham.annotationplatformproject1.model.Utilisateur;
 import com.hicham.annotationplatformproject1.repository.UtilisateurRepository;
 import com.hicham.annotationplatformproject1.security.CustomUserDetailsService;
 import com.hicham.annotationplatformproject1.security.JwtUtil;
+import com.hicham.annotationplatformproject1.security.StreamTicketService;
 import com.hicham.annotationplatformproject1.security.TokenBlacklist;
 import com.hicham.annotationplatformproject1.security.UtilisateurService;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,11 +14,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.*;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Date;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -41,6 +44,9 @@ public class AuthController {
     @Autowired
     private UtilisateurService utilisateurService;
 
+    @Autowired
+    private StreamTicketService streamTicketService;
+
     @PostMapping("/login")
     public ResponseEntity<ApiResponse<?>> login(@RequestBody AuthRequest request) {
         try {
@@ -95,6 +101,21 @@ public class AuthController {
         return ResponseEntity.ok(ApiResponse.success("Logout successful", null));
     }
 
+    /**
+     * Issues a short-lived, single-use ticket for opening an event stream as the authenticated user,
+     * passed as ?ticket= since EventSource cannot send the Authorization header.
+     */
+    @PostMapping("/stream-ticket")
+    public ResponseEntity<ApiResponse<?>> streamTicket() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserDetails userDetails)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ApiResponse.error("Authentication required"));
+        }
+        String ticket = streamTicketService.issue(userDetails.getUsername());
+        return ResponseEntity.ok(ApiResponse.success("Stream ticket issued", Map.of("ticket", ticket)));
+    }
+
     @PostMapping("/forgot-password")
     public ResponseEntity<ApiResponse<?>> forgotPassword(@RequestBody ForgotPasswordRequest request) {
         try {
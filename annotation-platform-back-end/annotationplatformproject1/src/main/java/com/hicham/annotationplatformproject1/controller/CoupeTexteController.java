@@ -2,6 +2,7 @@ package com.hicham.annotationplatformproject1.controller;
 
 import com.hicham.annotationplatformproject1.dto.ApiResponse;
 import com.hicham.annotationplatformproject1.dto.ResponseDetailsOfDatasetsDTO;
+import com.hicham.annotationplatformproject1.dto.UnassignmentRequest;
 import com.hicham.annotationplatformproject1.service.CoupeTexteService;
 import com.hicham.annotationplatformproject1.service.TaskAssignmentService;
 import org.springframework.http.ResponseEntity;
@@ -38,4 +39,14 @@ public class CoupeTexteController {
                 ? ResponseEntity.ok(response)
                 : ResponseEntity.status(400).body(response);
     }
+
+    @PostMapping("/dataset/{datasetId}/unassign")
+    public ResponseEntity<ApiResponse<String>> unassignAnnotatorsFromDataset(
+            @PathVariable Long datasetId,
+            @RequestBody UnassignmentRequest request) {
+        ApiResponse<String> response = taskAssignmentService.unassignAnnotatorsFromDataset(datasetId, request.getAnnotatorIds());
+        return response.isSuccess()
+                ? ResponseEntity.ok(response)
+                : ResponseEntity.status(400).body(response);
+    }
 }
\ No newline at end of file
@@ -5,7 +5,9 @@ import com.hicham.annotationplatformproject1.model.Annotation;
 import com.hicham.annotationplatformproject1.repository.AnnotationRepository;
 import com.hicham.annotationplatformproject1.security.UtilisateurService;
 import com.hicham.annotationplatformproject1.service.ActivityLogService;
+import com.hicham.annotationplatformproject1.service.AgreementEngine;
 import com.hicham.annotationplatformproject1.service.DatasetService;
+import com.hicham.annotationplatformproject1.service.LabelDistributionEngine;
 import com.hicham.annotationplatformproject1.service.TaskAssignmentService;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -25,17 +27,23 @@ public class DatasetController {
     private final UtilisateurService utilisateurService;
     private final AnnotationRepository annotationRepository;
     private final ActivityLogService activityLogService;
+    private final AgreementEngine agreementEngine;
+    private final LabelDistributionEngine labelDistributionEngine;
 
     public DatasetController(DatasetService datasetService,
                              TaskAssignmentService taskAssignmentService,
                              UtilisateurService utilisateurService,
                              AnnotationRepository annotationRepository,
-                             ActivityLogService activityLogService) {
+                             ActivityLogService activityLogService,
+                             AgreementEngine agreementEngine,
+                             LabelDistributionEngine labelDistributionEngine) {
         this.datasetService = datasetService;
         this.taskAssignmentService = taskAssignmentService;
         this.utilisateurService = utilisateurService;
         this.annotationRepository = annotationRepository;
         this.activityLogService = activityLogService;
+        this.agreementEngine = agreementEngine;
+        this.labelDistributionEngine = labelDistributionEngine;
     }
 
     @PostMapping
@@ -78,6 +86,33 @@ public class DatasetController {
                 : ResponseEntity.status(404).body(response);
     }
 
+    @GetMapping("/{id}/length-histogram")
+    public ResponseEntity<ApiResponse<LengthHistogramDTO>> getLengthHistogram(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "TOKENS") String unit,
+            @RequestParam(defaultValue = "25") int bucketSize) {
+        ApiResponse<LengthHistogramDTO> response = datasetService.getLengthHistogram(id, unit, bucketSize);
+        return response.isSuccess()
+                ? ResponseEntity.ok(response)
+                : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/{id}/agreement")
+    public ResponseEntity<ApiResponse<AgreementDTO>> getAgreement(@PathVariable Long id) {
+        ApiResponse<AgreementDTO> response = agreementEngine.getAgreement(id);
+        return response.isSuccess()
+                ? ResponseEntity.ok(response)
+                : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/{id}/label-distribution")
+    public ResponseEntity<ApiResponse<LabelDistributionDTO>> getLabelDistribution(@PathVariable Long id) {
+        ApiResponse<LabelDistributionDTO> response = labelDistributionEngine.getDistribution(id);
+        return response.isSuccess()
+                ? ResponseEntity.ok(response)
+                : ResponseEntity.badRequest().body(response);
+    }
+
     @GetMapping("/{datasetId}/available-annotators")
     public ResponseEntity<ApiResponse<List<UtilisateurDTO>>> getAvailableAnnotators() {
         try {
@@ -1,23 +1,43 @@
 package com.hicham.annotationplatformproject1.controller;
 
+import com.hicham.annotationplatformproject1.dto.AnnotationTrendPointDTO;
 import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.dto.DailyMetricsDTO;
 import com.hicham.annotationplatformproject1.dto.StatisticsDTO;
+import com.hicham.annotationplatformproject1.service.AnnotationRollupService;
+import com.hicham.annotationplatformproject1.service.DailyMetricSnapshotService;
+import com.hicham.annotationplatformproject1.service.LiveUpdateService;
 import com.hicham.annotationplatformproject1.service.StatisticsService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/admin/statistics")
 public class StatisticsController {
 
     private final StatisticsService statisticsService;
+    private final LiveUpdateService liveUpdateService;
+    private final AnnotationRollupService annotationRollupService;
+    private final DailyMetricSnapshotService dailyMetricSnapshotService;
 
     @Autowired
-    public StatisticsController(StatisticsService statisticsService) {
+    public StatisticsController(StatisticsService statisticsService, LiveUpdateService liveUpdateService,
+                                AnnotationRollupService annotationRollupService,
+                                DailyMetricSnapshotService dailyMetricSnapshotService) {
         this.statisticsService = statisticsService;
+        this.liveUpdateService = liveUpdateService;
+        this.annotationRollupService = annotationRollupService;
+        this.dailyMetricSnapshotService = dailyMetricSnapshotService;
     }
 
     @GetMapping
@@ -29,4 +49,29 @@ public class StatisticsController {
             return ResponseEntity.status(500).body(response);
         }
     }
+
+    @GetMapping("/trend")
+    public ResponseEntity<ApiResponse<List<AnnotationTrendPointDTO>>> getAnnotationTrend(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "DAY") String granularity,
+            @RequestParam(required = false) Long datasetId,
+            @RequestParam(required = false) Long annotatorId) {
+        ApiResponse<List<AnnotationTrendPointDTO>> response =
+                annotationRollupService.getTrend(from, to, granularity, datasetId, annotatorId);
+        return response.isSuccess() ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping("/history")
+    public ResponseEntity<ApiResponse<List<DailyMetricsDTO>>> getMetricsHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        ApiResponse<List<DailyMetricsDTO>> response = dailyMetricSnapshotService.getHistory(from, to);
+        return response.isSuccess() ? ResponseEntity.ok(response) : ResponseEntity.badRequest().body(response);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamUpdates() {
+        return liveUpdateService.subscribeAdmin();
+    }
 }
\ No newline at end of file
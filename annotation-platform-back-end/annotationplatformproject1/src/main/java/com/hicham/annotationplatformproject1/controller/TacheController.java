@@ -1,11 +1,22 @@
 package com.hicham.annotationplatformproject1.controller;
 
+import com.hicham.annotationplatformproject1.dto.AnnotationBatchRequest;
+import com.hicham.annotationplatformproject1.dto.AnnotationBatchResultDTO;
+import com.hicham.annotationplatformproject1.dto.AnnotationSyncRequest;
+import com.hicham.annotationplatformproject1.dto.AnnotationSyncResponse;
 import com.hicham.annotationplatformproject1.dto.ApiResponse;
 import com.hicham.annotationplatformproject1.dto.DatasetTaskSummaryDTO;
+import com.hicham.annotationplatformproject1.dto.TaskBatchDTO;
 import com.hicham.annotationplatformproject1.dto.TaskGroupDTO;
+import com.hicham.annotationplatformproject1.repository.UtilisateurRepository;
+import com.hicham.annotationplatformproject1.service.AnnotationSyncService;
+import com.hicham.annotationplatformproject1.service.LiveUpdateService;
 import com.hicham.annotationplatformproject1.service.TacheService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -14,9 +25,18 @@ import java.util.List;
 public class TacheController {
 
     private final TacheService tacheService;
+    private final AnnotationSyncService annotationSyncService;
+    private final LiveUpdateService liveUpdateService;
+    private final UtilisateurRepository utilisateurRepository;
 
-    public TacheController(TacheService tacheService) {
+    public TacheController(TacheService tacheService,
+                           AnnotationSyncService annotationSyncService,
+                           LiveUpdateService liveUpdateService,
+                           UtilisateurRepository utilisateurRepository) {
         this.tacheService = tacheService;
+        this.annotationSyncService = annotationSyncService;
+        this.liveUpdateService = liveUpdateService;
+        this.utilisateurRepository = utilisateurRepository;
     }
 
     @GetMapping("/annotator/{annotatorId}")
@@ -29,6 +49,32 @@ public class TacheController {
                 .body(response);
     }
 
+    @GetMapping("/annotator/{annotatorId}/batch")
+    public ResponseEntity<ApiResponse<TaskBatchDTO>> getTaskBatch(
+            @PathVariable Long annotatorId,
+            @RequestParam Long datasetId,
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean pendingOnly) {
+        ApiResponse<TaskBatchDTO> response = tacheService.getTaskBatch(annotatorId, datasetId, cursor, size, pendingOnly);
+        return ResponseEntity.status(response.isSuccess() ? 200 : 400)
+                .body(response);
+    }
+
+    @GetMapping(value = "/annotator/{annotatorId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamUpdates(@PathVariable Long annotatorId, Authentication authentication) {
+        // An annotator's channel is open to that annotator and to admins only
+        boolean allowed = authentication.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"))
+                || utilisateurRepository.findByUsername(authentication.getName())
+                .map(user -> user.getId().equals(annotatorId))
+                .orElse(false);
+        if (!allowed) {
+            return ResponseEntity.status(403).build();
+        }
+        return ResponseEntity.ok(liveUpdateService.subscribeAnnotator(annotatorId));
+    }
+
     @GetMapping("/annotator/{annotatorId}/summary")
     public ResponseEntity<ApiResponse<List<DatasetTaskSummaryDTO>>> getTaskSummaryByAnnotator(@PathVariable Long annotatorId) {
         ApiResponse<List<DatasetTaskSummaryDTO>> response = tacheService.getTaskSummaryByAnnotator(annotatorId);
@@ -45,4 +91,18 @@ public class TacheController {
         return ResponseEntity.status(response.isSuccess() ? 200 : 400)
                 .body(response);
     }
+
+    @PostMapping("/annotate/batch")
+    public ResponseEntity<ApiResponse<AnnotationBatchResultDTO>> saveAnnotations(@RequestBody AnnotationBatchRequest request) {
+        ApiResponse<AnnotationBatchResultDTO> response = tacheService.saveAnnotations(request);
+        return ResponseEntity.status(response.isSuccess() ? 200 : 400)
+                .body(response);
+    }
+
+    @PostMapping("/sync")
+    public ResponseEntity<ApiResponse<AnnotationSyncResponse>> sync(@RequestBody AnnotationSyncRequest request) {
+        ApiResponse<AnnotationSyncResponse> response = annotationSyncService.sync(request);
+        return ResponseEntity.status(response.isSuccess() ? 200 : 400)
+                .body(response);
+    }
 }
\ No newline at end of file
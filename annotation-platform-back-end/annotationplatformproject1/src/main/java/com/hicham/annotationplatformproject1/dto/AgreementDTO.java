@@ -0,0 +1,44 @@
+package com.hicham.annotationplatformproject1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Inter-annotator agreement of a dataset. Kappas and ratios are null when they are undefined
+ * (nothing to compare, or a single class used throughout).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AgreementDTO {
+    private Long datasetId;
+    private long annotations;
+    private long overlappingPairs; // Text pairs labeled by at least two annotators
+    private Double fleissKappa;
+    private List<ClassAgreement> classes;
+    private long[][] confusionMatrix; // Rows and columns in the order of classes
+    private List<AnnotatorAgreement> annotatorPairs;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ClassAgreement {
+        private Long classId;
+        private String nomClasse;
+        private Double specificAgreement; // Share of its labels matched by another annotator
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class AnnotatorAgreement {
+        private Long annotatorId1;
+        private Long annotatorId2;
+        private long sharedPairs; // Text pairs both labeled
+        private Double observedAgreement;
+        private Double cohenKappa;
+    }
+}
@@ -0,0 +1,24 @@
+package com.hicham.annotationplatformproject1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnnotationBatchRequest {
+    private Long annotatorId;
+    private List<Item> items;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Item {
+        private Long coupeTexteId;
+        private Long classeChoisieId;
+        private Long durationInSeconds; // Optional, time spent on the pair
+    }
+}
@@ -0,0 +1,25 @@
+package com.hicham.annotationplatformproject1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnnotationBatchResultDTO {
+    private int saved;
+    private int rejected;
+    private List<ItemResult> results; // Same order as the submitted items
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ItemResult {
+        private Long coupeTexteId;
+        private boolean success;
+        private String message;
+    }
+}
@@ -0,0 +1,27 @@
+package com.hicham.annotationplatformproject1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnnotationSyncRequest {
+    private Long annotatorId;
+    private Long datasetId;      // Optional: dataset to return new open tasks for
+    private Long cursor;         // Optional: last task ID the client already holds for that dataset
+    private List<Operation> operations;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Operation {
+        private String idempotencyKey; // Generated by the client, reused on every retry of the operation
+        private Long coupeTexteId;
+        private Long classeChoisieId;
+        private Long durationInSeconds;
+    }
+}
@@ -0,0 +1,30 @@
+package com.hicham.annotationplatformproject1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnnotationSyncResponse {
+    private List<Ack> acks;
+    private TaskBatchDTO deltas; // Open tasks after the request cursor, null when no dataset was given
+
+    public enum Status {
+        APPLIED,   // Saved by this request
+        DUPLICATE, // Already applied earlier (same key, or the pair is already labeled by this annotator)
+        REJECTED   // Invalid, will not succeed on retry
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Ack {
+        private String key;
+        private Status status;
+        private String message; // Only set for REJECTED
+    }
+}
@@ -0,0 +1,16 @@
+package com.hicham.annotationplatformproject1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AnnotationTrendPointDTO {
+    private String bucket; // ISO start of the bucket
+    private long count;
+    private long totalDurationSeconds;
+    private Double averageDurationSeconds; // null when no annotation of the bucket was timed
+    private long distinctAnnotators;
+}
@@ -1,8 +1,10 @@
 package com.hicham.annotationplatformproject1.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 public class ApiResponse<T> {
     private boolean success;
     private String message;
@@ -0,0 +1,18 @@
+package com.hicham.annotationplatformproject1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailyMetricsDTO {
+    private String date; // ISO day
+    private long totalDatasets;
+    private long activeAnnotators;
+    private long totalTasks;
+    private long completedTasks;
+    private double completionRate; // Percentage
+    private long annotations;
+}
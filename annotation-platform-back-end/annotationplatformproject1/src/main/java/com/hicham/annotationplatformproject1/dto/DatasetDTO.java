@@ -1,10 +1,12 @@
 package com.hicham.annotationplatformproject1.dto;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 
 @Data
+@NoArgsConstructor
 public class DatasetDTO {
     private Long id;
     private String name;
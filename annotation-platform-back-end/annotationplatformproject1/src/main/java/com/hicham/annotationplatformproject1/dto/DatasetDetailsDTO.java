@@ -2,10 +2,12 @@ package com.hicham.annotationplatformproject1.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.util.List;
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class DatasetDetailsDTO {
 
 
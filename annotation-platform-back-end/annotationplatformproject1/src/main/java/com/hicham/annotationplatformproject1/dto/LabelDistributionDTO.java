@@ -0,0 +1,39 @@
+package com.hicham.annotationplatformproject1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * How a dataset's labels are distributed across its classes, overall and per annotator.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LabelDistributionDTO {
+    private Long datasetId;
+    private long total;
+    private List<ClassCount> classes;
+    private List<AnnotatorCounts> annotators;
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class ClassCount {
+        private Long classId;
+        private String nomClasse;
+        private long count;
+        private double percentage;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class AnnotatorCounts {
+        private Long annotatorId;
+        private long total;
+        private long[] counts; // In the order of classes
+    }
+}
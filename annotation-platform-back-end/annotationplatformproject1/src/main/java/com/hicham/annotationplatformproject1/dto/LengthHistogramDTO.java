@@ -0,0 +1,26 @@
+package com.hicham.annotationplatformproject1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class LengthHistogramDTO {
+    private Long datasetId;
+    private String unit; // TOKENS or CHARACTERS
+    private int bucketSize;
+    private long totalPairs;
+    private long totalTokens; // Total estimated effort of the dataset
+    private long totalCharacters;
+    private List<Bucket> buckets;
+
+    @Data
+    @AllArgsConstructor
+    public static class Bucket {
+        private long from; // Inclusive
+        private long to;   // Exclusive
+        private long count;
+    }
+}
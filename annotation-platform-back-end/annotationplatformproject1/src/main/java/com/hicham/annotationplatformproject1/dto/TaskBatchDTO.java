@@ -0,0 +1,34 @@
+package com.hicham.annotationplatformproject1.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TaskBatchDTO {
+    private Long datasetId;
+    private String datasetName;
+    private List<TaskItemDTO> tasks;
+    private List<TaskGroupDTO.ClassDTO> classes;
+    private Long nextCursor; // Pass back as cursor to get the following tasks; null when there are no more
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class TaskItemDTO {
+        private Long taskId;
+        private Long coupeTexteId;
+        private String text1;
+        private String text2;
+        private String status;
+        private LocalDateTime dateCreation;
+        private LocalDateTime dateFin;
+        private Long assignedClassId;   // Existing label of this annotator, if any
+        private String assignedClass;
+    }
+}
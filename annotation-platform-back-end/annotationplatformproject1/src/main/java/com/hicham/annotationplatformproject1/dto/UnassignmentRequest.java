@@ -0,0 +1,10 @@
+package com.hicham.annotationplatformproject1.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class UnassignmentRequest {
+    private List<Long> annotatorIds; // Annotators to remove from the dataset
+}
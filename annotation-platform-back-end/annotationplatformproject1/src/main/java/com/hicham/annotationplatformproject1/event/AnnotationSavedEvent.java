@@ -0,0 +1,21 @@
+package com.hicham.annotationplatformproject1.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when an annotator has labeled a text pair.
+ */
+@Getter
+@AllArgsConstructor
+public class AnnotationSavedEvent {
+    private final Long datasetId;
+    private final Long coupeTexteId;
+    private final Long annotatorId;
+    private final Long classeChoisieId;
+    private final LocalDateTime annotatedAt;
+    private final Long durationInSeconds; // null when the time on task is unknown
+    private final boolean taskCompleted; // true when an open Tache was closed by this annotation
+}
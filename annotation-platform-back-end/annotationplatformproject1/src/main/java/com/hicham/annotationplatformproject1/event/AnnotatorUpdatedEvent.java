@@ -0,0 +1,20 @@
+package com.hicham.annotationplatformproject1.event;
+
+import com.hicham.annotationplatformproject1.model.Utilisateur;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published when an annotator's profile, role or active flag changed (including soft deletion).
+ */
+@Getter
+@AllArgsConstructor
+public class AnnotatorUpdatedEvent {
+    private final Long userId;
+    private final String displayName; // "prenom nom"
+    private final Utilisateur.Role role;
+    private final boolean active;
+    private final LocalDateTime createdAt;
+}
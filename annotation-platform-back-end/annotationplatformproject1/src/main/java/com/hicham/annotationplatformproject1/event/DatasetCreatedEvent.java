@@ -0,0 +1,16 @@
+package com.hicham.annotationplatformproject1.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published when a dataset and its text pairs have been imported.
+ */
+@Getter
+@AllArgsConstructor
+public class DatasetCreatedEvent {
+    private final Long datasetId;
+    private final String name;
+    private final long pairCount;
+    private final int classCount;
+}
@@ -0,0 +1,16 @@
+package com.hicham.annotationplatformproject1.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Published when new tasks have been created for annotators on a dataset.
+ */
+@Getter
+@AllArgsConstructor
+public class TasksAssignedEvent {
+    private final Long datasetId;
+    private final Map<Long, Long> tasksByAnnotator; // annotator ID -> number of new tasks
+}
@@ -0,0 +1,16 @@
+package com.hicham.annotationplatformproject1.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Published when open tasks have been taken away from annotators and their pairs returned to the pool.
+ */
+@Getter
+@AllArgsConstructor
+public class TasksUnassignedEvent {
+    private final Long datasetId;
+    private final Map<Long, Long> tasksByAnnotator; // annotator ID -> number of released tasks
+}
@@ -7,6 +7,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
+@Table(uniqueConstraints = @UniqueConstraint(
+        name = "uk_annotation_pair_annotator", columnNames = {"coupe_texte_id", "annotateur_id"}))
 public class Annotation {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,92 @@
+package com.hicham.annotationplatformproject1.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Annotation counts of one annotator on one dataset within a time bucket (hour, day or month).
+ * Rows are only ever incremented, so trends of any range are read from a few rows per bucket
+ * instead of scanning the annotations.
+ */
+@Entity
+@Table(
+        name = "annotation_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_rollup_bucket",
+                columnNames = {"granularity", "bucket_start", "dataset_id", "annotator_id"}),
+        indexes = {
+                @Index(name = "idx_rollup_dataset", columnList = "dataset_id, granularity, bucket_start"),
+                @Index(name = "idx_rollup_annotator", columnList = "annotator_id, granularity, bucket_start")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+public class AnnotationRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 8)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "dataset_id", nullable = false)
+    private Long datasetId;
+
+    @Column(name = "annotator_id", nullable = false)
+    private Long annotatorId;
+
+    @Column(name = "annotation_count", nullable = false)
+    private long annotationCount;
+
+    @Column(name = "timed_count", nullable = false)
+    private long timedCount; // Annotations with a measured duration
+
+    @Column(name = "total_duration", nullable = false)
+    private long totalDuration; // Seconds, over the timed annotations
+
+    public AnnotationRollup(Granularity granularity, LocalDateTime bucketStart, Long datasetId, Long annotatorId,
+                            long annotationCount, long timedCount, long totalDuration) {
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+        this.datasetId = datasetId;
+        this.annotatorId = annotatorId;
+        this.annotationCount = annotationCount;
+        this.timedCount = timedCount;
+        this.totalDuration = totalDuration;
+    }
+
+    public enum Granularity {
+        HOUR, DAY, MONTH;
+
+        /**
+         * Start of the bucket containing the given time.
+         */
+        public LocalDateTime truncate(LocalDateTime time) {
+            return switch (this) {
+                case HOUR -> time.truncatedTo(ChronoUnit.HOURS);
+                case DAY -> time.truncatedTo(ChronoUnit.DAYS);
+                case MONTH -> time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+            };
+        }
+
+        /**
+         * Start of the bucket following the one starting at the given time.
+         */
+        public LocalDateTime next(LocalDateTime bucketStart) {
+            return switch (this) {
+                case HOUR -> bucketStart.plusHours(1);
+                case DAY -> bucketStart.plusDays(1);
+                case MONTH -> bucketStart.plusMonths(1);
+            };
+        }
+    }
+}
@@ -3,13 +3,20 @@ package com.hicham.annotationplatformproject1.model;
 import jakarta.persistence.*;
 import lombok.Data;
 
+import java.util.concurrent.ThreadLocalRandom;
+
 @Entity
 @Data
+@Table(indexes = @Index(name = "idx_coupe_texte_pool", columnList = "dataset_id, assigned, random_key"))
 public class CoupeTexte {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     @Column(columnDefinition = "TEXT")
     private String text1;
 
@@ -18,7 +25,18 @@ public class CoupeTexte {
 
     private boolean assigned = false;
 
+    // Random sort key drawn once at ingestion, lets the pool be read in random order from the index
+    @Column(name = "random_key")
+    private Double randomKey = ThreadLocalRandom.current().nextDouble();
+
+    // Cost features computed at ingestion (text1 + text2), used to balance assignments by effort
+    @Column(name = "char_count")
+    private Integer charCount;
+
+    @Column(name = "token_count")
+    private Integer tokenCount;
+
     @ManyToOne
     @JoinColumn(name = "dataset_id")
     private Dataset dataset;
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package com.hicham.annotationplatformproject1.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Key platform metrics as they stood at the end of a day (the last snapshot taken that day).
+ */
+@Entity
+@Data
+@Table(name = "daily_metric_snapshot")
+public class DailyMetricSnapshot {
+    @Id
+    private LocalDate snapshotDate;
+
+    private long totalDatasets;
+    private long activeAnnotators;
+    private long totalTasks;
+    private long completedTasks;
+
+    private LocalDateTime takenAt;
+}
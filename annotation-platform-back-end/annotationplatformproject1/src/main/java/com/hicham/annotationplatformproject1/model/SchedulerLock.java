@@ -0,0 +1,22 @@
+package com.hicham.annotationplatformproject1.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease row used so that a scheduled job runs on only one node of the cluster at a time.
+ */
+@Entity
+@Data
+@Table(name = "scheduler_lock")
+public class SchedulerLock {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    private LocalDateTime lockedUntil;
+
+    private String lockedBy;
+}
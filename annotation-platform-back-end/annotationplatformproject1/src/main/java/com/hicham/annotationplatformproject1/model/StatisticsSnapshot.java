@@ -0,0 +1,25 @@
+package com.hicham.annotationplatformproject1.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Serialized state of an in-memory aggregate, restored on startup instead of recomputing it, or the
+ * progress of a startup job.
+ */
+@Entity
+@Data
+@Table(name = "statistics_snapshot")
+public class StatisticsSnapshot {
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Lob
+    @Column(columnDefinition = "LONGTEXT")
+    private String payload; // JSON
+
+    private LocalDateTime takenAt;
+}
@@ -7,11 +7,19 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
+@Table(indexes = {
+        @Index(name = "idx_tache_date_fin", columnList = "date_fin"),
+        @Index(name = "idx_tache_annotator_dataset", columnList = "annotateur_id, dataset_id")
+})
 public class Tache {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+
     @ManyToOne
     @JoinColumn(name = "dataset_id")
     private Dataset dataset;
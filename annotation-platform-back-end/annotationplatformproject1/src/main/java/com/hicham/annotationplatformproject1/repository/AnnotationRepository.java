@@ -2,6 +2,7 @@ package com.hicham.annotationplatformproject1.repository;
 
 import com.hicham.annotationplatformproject1.model.Annotation;
 import com.hicham.annotationplatformproject1.model.ClassePersistante;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
@@ -9,7 +10,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface AnnotationRepository extends JpaRepository<Annotation, Long> {
+public interface AnnotationRepository extends JpaRepository<Annotation, Long>, AnnotationRepositoryCustom {
     boolean existsByCoupeTexteIdAndAnnotateurId(Long coupeTexteId, Long annotateurId);
 
     long countByAnnotateAtAfter(LocalDateTime dateTime);
@@ -17,11 +18,13 @@ public interface AnnotationRepository extends JpaRepository<Annotation, Long> {
     @Query("SELECT COUNT(a) FROM Annotation a WHERE a.annotateAt BETWEEN :start AND :end")
     long countByAnnotateAtBetween(LocalDateTime start, LocalDateTime end);
 
-    @Query("SELECT FUNCTION('DATE', a.annotateAt) as date, COUNT(a) as count " +
-            "FROM Annotation a " +
-            "WHERE a.annotateAt >= :start AND a.annotateAt < :end " +
-            "GROUP BY FUNCTION('DATE', a.annotateAt)")
-    List<Object[]> countAnnotationsByDay(LocalDateTime start, LocalDateTime end);
+    @Query("SELECT MAX(a.id) FROM Annotation a")
+    Long findMaxId();
+
+    // Rollup backfill page, in id order: {id, datasetId, annotatorId, annotateAt, durationInSeconds}
+    @Query("SELECT a.id, a.coupeTexte.dataset.id, a.annotateur.id, a.annotateAt, a.durationInSeconds " +
+            "FROM Annotation a WHERE a.id > :afterId AND a.id <= :upToId ORDER BY a.id")
+    List<Object[]> findRollupSourcePage(Long afterId, Long upToId, Pageable pageable);
 
     List<Annotation> findByCoupeTexteIdIn(List<Long> coupeTexteIds);
 
@@ -34,8 +37,26 @@ public interface AnnotationRepository extends JpaRepository<Annotation, Long> {
 
     Annotation findByCoupeTexteIdAndAnnotateurId(Long id, Long annotatorId);
 
+    // Labels an annotator already gave on a set of pairs: {coupeTexteId, classeId, nomClasse}
+    @Query("SELECT a.coupeTexte.id, cl.id, cl.nomClasse FROM Annotation a JOIN a.classeChoisie cl " +
+            "WHERE a.annotateur.id = :annotatorId AND a.coupeTexte.id IN :coupeTexteIds")
+    List<Object[]> findLabelsByAnnotateurIdAndCoupeTexteIdIn(Long annotatorId, List<Long> coupeTexteIds);
+
+    @Query("SELECT a.coupeTexte.id FROM Annotation a WHERE a.annotateur.id = :annotatorId AND a.coupeTexte.id IN :coupeTexteIds")
+    List<Long> findAnnotatedCoupeTexteIds(Long annotatorId, List<Long> coupeTexteIds);
+
     Optional<ClassePersistante> findClassePersistanteById(Long classeChoisieId);
 
+    // Label counts: {datasetId, annotatorId, classeId, count}
+    @Query("SELECT a.coupeTexte.dataset.id, a.annotateur.id, a.classeChoisie.id, COUNT(a) FROM Annotation a " +
+            "GROUP BY a.coupeTexte.dataset.id, a.annotateur.id, a.classeChoisie.id")
+    List<Object[]> countLabelsGroupedByDatasetAndAnnotateur();
+
+    // Agreement source rows of a dataset: {coupeTexteId, annotatorId, classeId}
+    @Query("SELECT a.coupeTexte.id, a.annotateur.id, a.classeChoisie.id FROM Annotation a " +
+            "WHERE a.coupeTexte.dataset.id = :datasetId")
+    List<Object[]> findAgreementRowsByDatasetId(Long datasetId);
+
     @Query("SELECT a FROM Annotation a WHERE a.coupeTexte.dataset.id = :datasetId")
     List<Annotation> findByCoupeTexteDatasetId(Long datasetId);
 }
\ No newline at end of file
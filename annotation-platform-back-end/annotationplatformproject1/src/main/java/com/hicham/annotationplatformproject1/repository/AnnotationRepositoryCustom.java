@@ -0,0 +1,24 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AnnotationRepositoryCustom {
+
+    /**
+     * Inserts annotations of one annotator in a single JDBC batch.
+     *
+     * @param rows {coupeTexteId, classeChoisieId, durationInSeconds (nullable)} triples.
+     */
+    void insertAnnotations(Long annotatorId, LocalDateTime annotatedAt, List<Object[]> rows);
+
+    /**
+     * Inserts one annotation in a single statement, only if the pair exists in the given dataset
+     * and the user is an annotator. A second annotation of the same pair by the same annotator is
+     * rejected by the uk_annotation_pair_annotator constraint (DuplicateKeyException).
+     *
+     * @return false when the pair, dataset or annotator did not match (nothing inserted).
+     */
+    boolean insertAnnotation(Long coupeTexteId, Long annotatorId, Long classeChoisieId, Long datasetId,
+                             LocalDateTime annotatedAt, Long durationInSeconds);
+}
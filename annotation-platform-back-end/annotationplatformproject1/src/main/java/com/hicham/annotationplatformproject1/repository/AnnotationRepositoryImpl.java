@@ -0,0 +1,61 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class AnnotationRepositoryImpl implements AnnotationRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AnnotationRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAnnotations(Long annotatorId, LocalDateTime annotatedAt, List<Object[]> rows) {
+        if (rows.isEmpty()) return;
+
+        Timestamp timestamp = Timestamp.valueOf(annotatedAt);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO annotation (coupe_texte_id, annotateur_id, classe_choisie_id, annotate_at, duration_in_seconds) " +
+                        "VALUES (?, ?, ?, ?, ?)",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setLong(1, (Long) row[0]);
+                    ps.setLong(2, annotatorId);
+                    ps.setLong(3, (Long) row[1]);
+                    ps.setTimestamp(4, timestamp);
+                    if (row[2] != null) {
+                        ps.setLong(5, (Long) row[2]);
+                    } else {
+                        ps.setNull(5, Types.BIGINT);
+                    }
+                });
+    }
+
+    @Override
+    public boolean insertAnnotation(Long coupeTexteId, Long annotatorId, Long classeChoisieId, Long datasetId,
+                                    LocalDateTime annotatedAt, Long durationInSeconds) {
+        // INSERT ... SELECT validates pair, dataset and annotator role in the same round trip
+        int inserted = jdbcTemplate.update(
+                "INSERT INTO annotation (coupe_texte_id, annotateur_id, classe_choisie_id, annotate_at, duration_in_seconds) " +
+                        "SELECT c.id, u.id, ?, ?, ? FROM coupe_texte c JOIN utilisateur u ON u.id = ? " +
+                        "WHERE c.id = ? AND c.dataset_id = ? AND u.role = 'ANNOTATOR'",
+                ps -> {
+                    ps.setLong(1, classeChoisieId);
+                    ps.setTimestamp(2, Timestamp.valueOf(annotatedAt));
+                    if (durationInSeconds != null) {
+                        ps.setLong(3, durationInSeconds);
+                    } else {
+                        ps.setNull(3, Types.BIGINT);
+                    }
+                    ps.setLong(4, annotatorId);
+                    ps.setLong(5, coupeTexteId);
+                    ps.setLong(6, datasetId);
+                });
+        return inserted > 0;
+    }
+}
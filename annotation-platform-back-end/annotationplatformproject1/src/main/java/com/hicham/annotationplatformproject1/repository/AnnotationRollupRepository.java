@@ -0,0 +1,21 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import com.hicham.annotationplatformproject1.model.AnnotationRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface AnnotationRollupRepository extends JpaRepository<AnnotationRollup, Long>, AnnotationRollupRepositoryCustom {
+
+    // Per bucket in [from, to): {bucketStart, annotationCount, timedCount, totalDuration, distinctAnnotators}
+    @Query("SELECT r.bucketStart, SUM(r.annotationCount), SUM(r.timedCount), SUM(r.totalDuration), " +
+            "COUNT(DISTINCT r.annotatorId) FROM AnnotationRollup r " +
+            "WHERE r.granularity = :granularity AND r.bucketStart >= :from AND r.bucketStart < :to " +
+            "AND (:datasetId IS NULL OR r.datasetId = :datasetId) " +
+            "AND (:annotatorId IS NULL OR r.annotatorId = :annotatorId) " +
+            "GROUP BY r.bucketStart ORDER BY r.bucketStart")
+    List<Object[]> sumByBucket(AnnotationRollup.Granularity granularity, LocalDateTime from, LocalDateTime to,
+                               Long datasetId, Long annotatorId);
+}
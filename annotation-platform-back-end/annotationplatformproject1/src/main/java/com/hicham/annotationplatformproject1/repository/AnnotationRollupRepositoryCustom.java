@@ -0,0 +1,15 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import com.hicham.annotationplatformproject1.model.AnnotationRollup;
+
+import java.util.List;
+
+public interface AnnotationRollupRepositoryCustom {
+
+    /**
+     * Adds the given counts to their rollup rows (creating missing rows) in one JDBC batch.
+     *
+     * @param increments Rollups holding the amounts to add, not the new totals.
+     */
+    void addToRollups(List<AnnotationRollup> increments);
+}
@@ -0,0 +1,38 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import com.hicham.annotationplatformproject1.model.AnnotationRollup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+public class AnnotationRollupRepositoryImpl implements AnnotationRollupRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AnnotationRollupRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void addToRollups(List<AnnotationRollup> increments) {
+        if (increments.isEmpty()) return;
+
+        // Relies on the bucket unique constraint: the increment is applied in the row, so concurrent writers never lose counts
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO annotation_rollup (granularity, bucket_start, dataset_id, annotator_id, " +
+                        "annotation_count, timed_count, total_duration) VALUES (?, ?, ?, ?, ?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE annotation_count = annotation_count + VALUES(annotation_count), " +
+                        "timed_count = timed_count + VALUES(timed_count), " +
+                        "total_duration = total_duration + VALUES(total_duration)",
+                increments, increments.size(), (ps, rollup) -> {
+                    ps.setString(1, rollup.getGranularity().name());
+                    ps.setTimestamp(2, Timestamp.valueOf(rollup.getBucketStart()));
+                    ps.setLong(3, rollup.getDatasetId());
+                    ps.setLong(4, rollup.getAnnotatorId());
+                    ps.setLong(5, rollup.getAnnotationCount());
+                    ps.setLong(6, rollup.getTimedCount());
+                    ps.setLong(7, rollup.getTotalDuration());
+                });
+    }
+}
@@ -2,6 +2,21 @@ package com.hicham.annotationplatformproject1.repository;
 
 import com.hicham.annotationplatformproject1.model.ClassePersistante;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 
 public interface ClassePersistanteRepository extends JpaRepository<ClassePersistante, Long> {
-}
\ No newline at end of file
+
+    // {id, nomClasse} of a dataset's classes, in creation order
+    @Query("SELECT c.id, c.nomClasse FROM ClassePersistante c WHERE c.dataset.id = :datasetId ORDER BY c.id")
+    List<Object[]> findLabelsByDatasetId(Long datasetId);
+
+    // {id, nomClasse, datasetId} of a single class (empty when it does not exist)
+    @Query("SELECT c.id, c.nomClasse, c.dataset.id FROM ClassePersistante c WHERE c.id = :id")
+    List<Object[]> findLabelById(Long id);
+
+    // {id, nomClasse, datasetId} of every class, in creation order
+    @Query("SELECT c.id, c.nomClasse, c.dataset.id FROM ClassePersistante c ORDER BY c.id")
+    List<Object[]> findAllLabels();
+}
@@ -1,18 +1,64 @@
 package com.hicham.annotationplatformproject1.repository;
 
 import com.hicham.annotationplatformproject1.model.CoupeTexte;
+import com.hicham.annotationplatformproject1.model.Tache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 
-public interface CoupeTexteRepository extends JpaRepository<CoupeTexte, Long> {
+public interface CoupeTexteRepository extends JpaRepository<CoupeTexte, Long>, CoupeTexteRepositoryCustom {
 
 
-    @Query("SELECT c FROM CoupeTexte c WHERE c.dataset.id = :datasetId AND c.assigned = false")
-    List<CoupeTexte> findUnassignedByDatasetId(Long datasetId);
+    // Reads the unassigned pool in random order straight from idx_coupe_texte_pool: {id, tokenCount}, no texts
+    @Query("SELECT c.id, c.tokenCount FROM CoupeTexte c WHERE c.dataset.id = :datasetId AND c.assigned = false ORDER BY c.randomKey")
+    List<Object[]> findUnassignedInRandomOrder(Long datasetId, Pageable pageable);
+
+    @Query("SELECT COUNT(c) FROM CoupeTexte c WHERE c.dataset.id = :datasetId AND c.assigned = false")
+    long countUnassignedByDatasetId(Long datasetId);
+
+    @Query("SELECT AVG(c.tokenCount) FROM CoupeTexte c WHERE c.dataset.id = :datasetId")
+    Double averageTokenCountByDatasetId(Long datasetId);
+
+    // {pairs, tokens, characters}
+    @Query("SELECT COUNT(c), COALESCE(SUM(c.tokenCount), 0), COALESCE(SUM(c.charCount), 0) FROM CoupeTexte c WHERE c.dataset.id = :datasetId")
+    List<Object[]> sumTextStatisticsByDatasetId(Long datasetId);
+
+    @Query(value = "SELECT FLOOR(token_count / :bucketSize) AS bucket, COUNT(*) FROM coupe_texte " +
+            "WHERE dataset_id = :datasetId GROUP BY bucket ORDER BY bucket", nativeQuery = true)
+    List<Object[]> tokenHistogramByDatasetId(Long datasetId, int bucketSize);
+
+    @Query(value = "SELECT FLOOR(char_count / :bucketSize) AS bucket, COUNT(*) FROM coupe_texte " +
+            "WHERE dataset_id = :datasetId GROUP BY bucket ORDER BY bucket", nativeQuery = true)
+    List<Object[]> charHistogramByDatasetId(Long datasetId, int bucketSize);
+
+    // Returns pairs to the pool unless someone already annotated them
+    @Modifying
+    @Query("UPDATE CoupeTexte c SET c.assigned = false, c.version = c.version + 1 WHERE c.id IN :ids " +
+            "AND NOT EXISTS (SELECT a.id FROM Annotation a WHERE a.coupeTexte.id = c.id)")
+    int releaseUnannotated(List<Long> ids);
+
+    // Same, for every pair behind the open tasks of the given annotators in a dataset
+    @Modifying
+    @Query("UPDATE CoupeTexte c SET c.assigned = false, c.version = c.version + 1 WHERE c.id IN (" +
+            "SELECT t.coupeTexte.id FROM Tache t WHERE t.dataset.id = :datasetId " +
+            "AND t.annotateur.id IN :annotatorIds AND t.statut <> :completed) " +
+            "AND NOT EXISTS (SELECT a.id FROM Annotation a WHERE a.coupeTexte.id = c.id)")
+    int releaseUnannotatedForAnnotators(Long datasetId, List<Long> annotatorIds, Tache.StatutTache completed);
+
+    // Pairs ingested before random_key existed get their key lazily
+    @Modifying
+    @Query(value = "UPDATE coupe_texte SET random_key = RAND() WHERE dataset_id = :datasetId AND random_key IS NULL",
+            nativeQuery = true)
+    int backfillRandomKeys(Long datasetId);
+
+    // {id, text1, text2} of pairs ingested before the cost features existed, in ID order
+    @Query("SELECT c.id, c.text1, c.text2 FROM CoupeTexte c " +
+            "WHERE c.dataset.id = :datasetId AND c.tokenCount IS NULL AND c.id > :afterId ORDER BY c.id")
+    List<Object[]> findWithoutTextStatistics(Long datasetId, Long afterId, Pageable pageable);
 
 
     long countByDatasetId(Long id);
@@ -21,7 +67,11 @@ public interface CoupeTexteRepository extends JpaRepository<CoupeTexte, Long> {
 
     Page<CoupeTexte> findByDatasetId(Long datasetId, Pageable pageable);
 
+    // {id, datasetId} of the given pairs; unknown IDs are simply absent
+    @Query("SELECT c.id, c.dataset.id FROM CoupeTexte c WHERE c.id IN :ids")
+    List<Object[]> findDatasetIdsByIdIn(List<Long> ids);
+
     @Query("SELECT c FROM CoupeTexte c WHERE c.dataset.id = :datasetId")
     List<CoupeTexte> findByDatasetId(Long datasetId);
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,20 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import java.util.List;
+
+public interface CoupeTexteRepositoryCustom {
+
+    /**
+     * Marks the given pairs as assigned, each with a conditional update (WHERE assigned = false).
+     *
+     * @return The IDs this call actually claimed; pairs taken concurrently by someone else are left out.
+     */
+    List<Long> claimUnassigned(List<Long> ids);
+
+    /**
+     * Sets the cost features of pairs that have none yet, in one JDBC batch.
+     *
+     * @param rows {id, charCount, tokenCount} per pair.
+     */
+    void updateTextStatistics(List<Object[]> rows);
+}
@@ -0,0 +1,44 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CoupeTexteRepositoryImpl implements CoupeTexteRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CoupeTexteRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Long> claimUnassigned(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+
+        // One JDBC batch; the per-row update counts tell exactly which pairs were won
+        int[] updated = jdbcTemplate.batchUpdate(
+                "UPDATE coupe_texte SET assigned = true, version = version + 1 WHERE id = ? AND assigned = false",
+                ids, ids.size(), (ps, id) -> ps.setLong(1, id))[0];
+
+        List<Long> claimed = new ArrayList<>(ids.size());
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] > 0) claimed.add(ids.get(i));
+        }
+        return claimed;
+    }
+
+    @Override
+    public void updateTextStatistics(List<Object[]> rows) {
+        if (rows.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(
+                "UPDATE coupe_texte SET char_count = ?, token_count = ? WHERE id = ? AND token_count IS NULL",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setInt(1, (Integer) row[1]);
+                    ps.setInt(2, (Integer) row[2]);
+                    ps.setLong(3, (Long) row[0]);
+                });
+    }
+}
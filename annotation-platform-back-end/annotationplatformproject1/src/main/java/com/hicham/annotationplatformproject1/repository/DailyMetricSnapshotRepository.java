@@ -0,0 +1,16 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import com.hicham.annotationplatformproject1.model.DailyMetricSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface DailyMetricSnapshotRepository extends JpaRepository<DailyMetricSnapshot, LocalDate> {
+
+    // Latest snapshot of a day before the given one
+    Optional<DailyMetricSnapshot> findFirstBySnapshotDateBeforeOrderBySnapshotDateDesc(LocalDate date);
+
+    List<DailyMetricSnapshot> findBySnapshotDateBetweenOrderBySnapshotDate(LocalDate from, LocalDate to);
+}
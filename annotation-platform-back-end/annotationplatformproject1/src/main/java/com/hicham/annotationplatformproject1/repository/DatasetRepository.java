@@ -1,12 +1,12 @@
 package com.hicham.annotationplatformproject1.repository;
 
 import com.hicham.annotationplatformproject1.model.Dataset;
+import com.hicham.annotationplatformproject1.model.Tache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,10 +15,22 @@ public interface DatasetRepository extends JpaRepository<Dataset, Long> {
 
     long count();
 
-    // Count datasets created before a specific time
-    @Query("SELECT COUNT(d) FROM Dataset d WHERE d.createdAt < :time")
-    long countByCreatedAtBefore(LocalDateTime time);
-
     Page<Dataset> findAll(Pageable pageable);
 
+    // {id, name, description} of one dataset (empty when it does not exist)
+    @Query("SELECT d.id, d.name, d.description FROM Dataset d WHERE d.id = :id")
+    List<Object[]> findHeaderById(Long id);
+
+    // {id, name, createdAt} of every dataset
+    @Query("SELECT d.id, d.name, d.createdAt FROM Dataset d ORDER BY d.id")
+    List<Object[]> findSummaries();
+
+    // {name, completedTasks, pendingTasks} of every dataset, in one pass over the tasks
+    @Query("SELECT d.name, " +
+            "SUM(CASE WHEN t.statut = :completed THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN t.statut <> :completed THEN 1 ELSE 0 END) " +
+            "FROM Dataset d LEFT JOIN Tache t ON t.dataset = d " +
+            "GROUP BY d.id, d.name ORDER BY d.id")
+    List<Object[]> findTaskProgress(Tache.StatutTache completed);
+
 }
\ No newline at end of file
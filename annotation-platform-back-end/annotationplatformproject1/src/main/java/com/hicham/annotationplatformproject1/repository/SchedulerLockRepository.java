@@ -0,0 +1,25 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import com.hicham.annotationplatformproject1.model.SchedulerLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO scheduler_lock (name) VALUES (:name)", nativeQuery = true)
+    int createIfAbsent(String name);
+
+    // Takes the lease only if it is free or expired; returns 1 when acquired
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = :until, l.lockedBy = :owner " +
+            "WHERE l.name = :name AND (l.lockedUntil IS NULL OR l.lockedUntil < :now OR l.lockedBy = :owner)")
+    int tryAcquire(String name, String owner, LocalDateTime now, LocalDateTime until);
+
+    @Modifying
+    @Query("UPDATE SchedulerLock l SET l.lockedUntil = NULL WHERE l.name = :name AND l.lockedBy = :owner")
+    int release(String name, String owner);
+}
@@ -0,0 +1,7 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import com.hicham.annotationplatformproject1.model.StatisticsSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface StatisticsSnapshotRepository extends JpaRepository<StatisticsSnapshot, String> {
+}
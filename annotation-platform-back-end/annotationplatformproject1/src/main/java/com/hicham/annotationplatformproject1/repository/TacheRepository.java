@@ -4,6 +4,7 @@ import com.hicham.annotationplatformproject1.model.Tache;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -26,13 +27,43 @@ public interface TacheRepository extends JpaRepository<Tache, Long> {
 
     long countByAnnotateurIdAndStatut(Long annotatorId, Tache.StatutTache statut);
 
-    @Query("SELECT COUNT(t) FROM Tache t WHERE t.dateCreation < :time")
-    long countByDateCreationBefore(LocalDateTime time);
+    @Query("SELECT t.annotateur.id, COUNT(t) FROM Tache t " +
+            "WHERE t.annotateur IS NOT NULL AND t.statut <> :completed " +
+            "GROUP BY t.annotateur.id")
+    List<Object[]> countOpenTasksGroupedByAnnotateur(Tache.StatutTache completed);
 
-    // Count completed tasks before a specific time
-    @Query("SELECT COUNT(t) FROM Tache t WHERE t.statut = :statut AND t.dateCreation < :time")
-    long countByStatutAndDateCreationBefore(Tache.StatutTache statut, LocalDateTime time);
+    // {datasetId, total, completed} for every dataset that has tasks
+    @Query("SELECT t.dataset.id, COUNT(t), SUM(CASE WHEN t.statut = :completed THEN 1 ELSE 0 END) " +
+            "FROM Tache t GROUP BY t.dataset.id")
+    List<Object[]> countTasksGroupedByDataset(Tache.StatutTache completed);
 
+    // {annotatorId, total, completed} for every annotator that has tasks
+    @Query("SELECT t.annotateur.id, COUNT(t), SUM(CASE WHEN t.statut = :completed THEN 1 ELSE 0 END) " +
+            "FROM Tache t WHERE t.annotateur IS NOT NULL GROUP BY t.annotateur.id")
+    List<Object[]> countTasksGroupedByAnnotateur(Tache.StatutTache completed);
+
+
+    // Oldest overdue open tasks first: {id, annotateurId, coupeTexteId, datasetId, dateFin}
+    @Query("SELECT t.id, t.annotateur.id, t.coupeTexte.id, t.dataset.id, t.dateFin FROM Tache t " +
+            "WHERE t.dateFin < :now AND t.statut <> :completed AND t.annotateur IS NOT NULL " +
+            "ORDER BY t.dateFin")
+    List<Object[]> findOverdueTasks(LocalDateTime now, Tache.StatutTache completed, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE Tache t SET t.annotateur = NULL, t.statut = :pending, t.dateDebut = NULL, t.dateFin = NULL, t.version = t.version + 1 " +
+            "WHERE t.id IN :ids AND t.statut <> :completed")
+    int reclaimTasks(List<Long> ids, Tache.StatutTache pending, Tache.StatutTache completed);
+
+    // Open tasks of the given annotators in a dataset: {annotateurId, count}
+    @Query("SELECT t.annotateur.id, COUNT(t) FROM Tache t " +
+            "WHERE t.dataset.id = :datasetId AND t.annotateur.id IN :annotatorIds AND t.statut <> :completed " +
+            "GROUP BY t.annotateur.id")
+    List<Object[]> countOpenTasksByDatasetGroupedByAnnotateur(Long datasetId, List<Long> annotatorIds, Tache.StatutTache completed);
+
+    @Modifying
+    @Query("UPDATE Tache t SET t.annotateur = NULL, t.statut = :pending, t.dateDebut = NULL, t.dateFin = NULL, t.version = t.version + 1 " +
+            "WHERE t.dataset.id = :datasetId AND t.annotateur.id IN :annotatorIds AND t.statut <> :completed")
+    int unassignOpenTasks(Long datasetId, List<Long> annotatorIds, Tache.StatutTache pending, Tache.StatutTache completed);
 
     long countByDatasetId(Long datasetId);
     @Query("SELECT DISTINCT t.dataset.id FROM Tache t")
@@ -46,5 +77,50 @@ public interface TacheRepository extends JpaRepository<Tache, Long> {
 
     List<Tache> findByAnnotateurId(Long annotatorId);
 
+    // Annotator's open tasks on the given pairs: {coupeTexteId, dateDebut}
+    @Query("SELECT t.coupeTexte.id, t.dateDebut FROM Tache t WHERE t.annotateur.id = :annotatorId " +
+            "AND t.coupeTexte.id IN :coupeTexteIds AND t.statut <> :completed")
+    List<Object[]> findOpenTasks(Long annotatorId, List<Long> coupeTexteIds, Tache.StatutTache completed);
+
+    // Serve time of the annotator's open task on a pair (null when not served yet)
+    @Query("SELECT t.dateDebut FROM Tache t WHERE t.coupeTexte.id = :coupeTexteId AND t.annotateur.id = :annotatorId " +
+            "AND t.statut <> :completed")
+    List<LocalDateTime> findOpenTaskServeTimes(Long coupeTexteId, Long annotatorId, Tache.StatutTache completed);
+
+    // Starts the given tasks that are still pending; dateDebut keeps the first serve time
+    @Modifying
+    @Query("UPDATE Tache t SET t.statut = :inProgress, t.dateDebut = COALESCE(t.dateDebut, :now), t.version = t.version + 1 " +
+            "WHERE t.id IN :ids AND t.statut = :pending")
+    int markServed(List<Long> ids, Tache.StatutTache pending, Tache.StatutTache inProgress, LocalDateTime now);
+
+    // Closes the annotator's task on a pair if it is still open; returns 1 when it was
+    @Modifying
+    @Query("UPDATE Tache t SET t.statut = :completed, t.dateFin = :now, t.version = t.version + 1 " +
+            "WHERE t.coupeTexte.id = :coupeTexteId AND t.annotateur.id = :annotatorId AND t.statut <> :completed")
+    int completeTask(Long coupeTexteId, Long annotatorId, Tache.StatutTache completed, LocalDateTime now);
+
+    // Closes an annotator's open tasks on the given pairs in one statement
+    @Modifying
+    @Query("UPDATE Tache t SET t.statut = :completed, t.dateFin = :now, t.version = t.version + 1 " +
+            "WHERE t.annotateur.id = :annotatorId AND t.coupeTexte.id IN :coupeTexteIds AND t.statut <> :completed")
+    int completeTasks(Long annotatorId, List<Long> coupeTexteIds, Tache.StatutTache completed, LocalDateTime now);
+
+    // Per-dataset summary of an annotator's tasks, computed in the database:
+    // {datasetId, name, description, totalPairs, annotatedPairs, firstTaskId}
+    @Query("SELECT d.id, d.name, d.description, COUNT(DISTINCT t.coupeTexte.id), COUNT(DISTINCT a.id), MIN(t.id) " +
+            "FROM Tache t JOIN t.dataset d " +
+            "LEFT JOIN Annotation a ON a.coupeTexte = t.coupeTexte AND a.annotateur = t.annotateur " +
+            "WHERE t.annotateur.id = :annotatorId " +
+            "GROUP BY d.id, d.name, d.description ORDER BY d.id")
+    List<Object[]> summarizeTasksByAnnotateurId(Long annotatorId);
+
     Page<Tache> findByAnnotateurIdAndDatasetId(Long annotatorId, Long datasetId, Pageable pageable);
+
+    // Keyset page of an annotator's tasks with their texts, no entity loading:
+    // {taskId, coupeTexteId, text1, text2, statut, dateCreation, dateFin}
+    @Query("SELECT t.id, c.id, c.text1, c.text2, t.statut, t.dateCreation, t.dateFin FROM Tache t JOIN t.coupeTexte c " +
+            "WHERE t.annotateur.id = :annotatorId AND t.dataset.id = :datasetId AND t.id > :cursor " +
+            "AND (:pendingOnly = false OR t.statut <> :completed) ORDER BY t.id")
+    List<Object[]> findTaskBatch(Long annotatorId, Long datasetId, Long cursor, boolean pendingOnly,
+                                 Tache.StatutTache completed, Pageable pageable);
 }
\ No newline at end of file
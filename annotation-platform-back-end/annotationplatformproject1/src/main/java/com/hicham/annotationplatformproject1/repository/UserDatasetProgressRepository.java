@@ -5,6 +5,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface UserDatasetProgressRepository extends JpaRepository<UserDatasetProgress, Long> {
+public interface UserDatasetProgressRepository extends JpaRepository<UserDatasetProgress, Long>, UserDatasetProgressRepositoryCustom {
     Optional<UserDatasetProgress> findByUserIdAndDatasetId(Long userId, Long datasetId);
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import java.util.List;
+
+public interface UserDatasetProgressRepositoryCustom {
+
+    /**
+     * Inserts or updates last-page rows in one JDBC batch.
+     *
+     * @param rows {userId, datasetId, lastPage} triples.
+     */
+    void upsertLastPages(List<long[]> rows);
+}
@@ -0,0 +1,29 @@
+package com.hicham.annotationplatformproject1.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+public class UserDatasetProgressRepositoryImpl implements UserDatasetProgressRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserDatasetProgressRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void upsertLastPages(List<long[]> rows) {
+        if (rows.isEmpty()) return;
+
+        // Relies on the (user_id, dataset_id) unique constraint, so no read is needed before the write
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO user_dataset_progress (user_id, dataset_id, last_page) VALUES (?, ?, ?) " +
+                        "ON DUPLICATE KEY UPDATE last_page = VALUES(last_page)",
+                rows, rows.size(), (ps, row) -> {
+                    ps.setLong(1, row[0]);
+                    ps.setLong(2, row[1]);
+                    ps.setInt(3, (int) row[2]);
+                });
+    }
+}
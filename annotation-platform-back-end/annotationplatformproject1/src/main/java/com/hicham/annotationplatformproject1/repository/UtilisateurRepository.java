@@ -1,10 +1,11 @@
 package com.hicham.annotationplatformproject1.repository;
 
+import com.hicham.annotationplatformproject1.model.Tache;
 import com.hicham.annotationplatformproject1.model.Utilisateur;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,11 +15,22 @@ public interface UtilisateurRepository extends JpaRepository<Utilisateur, Long>
     List<Utilisateur> findByRole(Utilisateur.Role role);
 
     long countByRoleAndActive(Utilisateur.Role role, boolean active);
-    @Query("SELECT COUNT(u) FROM Utilisateur u WHERE u.role = :role AND u.active = :active AND u.createdAt < :time")
-    long countByRoleAndActiveAndCreatedAtBefore(Utilisateur.Role role, boolean active, LocalDateTime time);
-
 
     List<Utilisateur> findByRoleAndActive(Utilisateur.Role role, boolean active);
+
+    // {id, prenom, nom, active, createdAt} of every user with the role
+    @Query("SELECT u.id, u.prenom, u.nom, u.active, u.createdAt FROM Utilisateur u WHERE u.role = :role ORDER BY u.id")
+    List<Object[]> findSummariesByRole(Utilisateur.Role role);
+
+    // Leaderboard: {prenom, nom, totalTasks, completedTasks}, highest whole completion percentage first
+    @Query("SELECT u.prenom, u.nom, COUNT(t), SUM(CASE WHEN t.statut = :completed THEN 1 ELSE 0 END) " +
+            "FROM Utilisateur u LEFT JOIN Tache t ON t.annotateur = u " +
+            "WHERE u.role = :role " +
+            "GROUP BY u.id, u.prenom, u.nom " +
+            "ORDER BY CASE WHEN COUNT(t) = 0 THEN 0 " +
+            "ELSE FLOOR(SUM(CASE WHEN t.statut = :completed THEN 1 ELSE 0 END) * 100 / COUNT(t)) END DESC, u.id")
+    List<Object[]> findTopByCompletionRate(Utilisateur.Role role, Tache.StatutTache completed, Pageable pageable);
+
     Optional<Utilisateur> findByEmail(String email);
 
 }
\ No newline at end of file
@@ -1,24 +1,92 @@
 package com.hicham.annotationplatformproject1.security;
 
+import com.hicham.annotationplatformproject1.config.CacheNames;
 import com.hicham.annotationplatformproject1.model.Utilisateur;
 import com.hicham.annotationplatformproject1.repository.UtilisateurRepository;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+/**
+ * Loads users for authentication. Every authenticated request looks its user up, so credentials are
+ * kept in the users cache, in this process only; callers that change a username, password or role must
+ * call evict.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
     @Autowired
     private UtilisateurRepository utilisateurRepository;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * What authentication needs of a user.
+     */
+    record Credentials(String username, String password, String role) {
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Utilisateur user = utilisateurRepository.findByUsername(username)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        Cache users = cacheManager.getCache(CacheNames.USERS);
+        Credentials credentials = null;
+        if (users != null) {
+            try {
+                credentials = users.get(username, Credentials.class);
+            } catch (RuntimeException e) {
+                meterRegistry.counter("cache.errors").increment();
+            }
+        }
+
+        if (credentials == null) {
+            Utilisateur user = utilisateurRepository.findByUsername(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+            credentials = new Credentials(user.getUsername(), user.getPassword(), user.getRole().name());
+            if (users != null) {
+                try {
+                    users.put(username, credentials);
+                } catch (RuntimeException e) {
+                    meterRegistry.counter("cache.errors").increment();
+                }
+            }
+        }
+
         return org.springframework.security.core.userdetails.User
-                .withUsername(user.getUsername())
-                .password(user.getPassword())
-                .roles(user.getRole().name())
+                .withUsername(credentials.username())
+                .password(credentials.password())
+                .roles(credentials.role())
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Drops a user's cached credentials. Inside a transaction they are dropped again after commit,
+     * so a login that read the old row in between cannot leave it cached.
+     */
+    public void evict(String username) {
+        evictNow(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(username);
+                }
+            });
+        }
+    }
+
+    private void evictNow(String username) {
+        Cache users = cacheManager.getCache(CacheNames.USERS);
+        if (users == null) return;
+        try {
+            users.evict(username);
+        } catch (RuntimeException e) {
+            meterRegistry.counter("cache.errors").increment();
+        }
+    }
+}
@@ -19,13 +19,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
     private final TokenBlacklist tokenBlacklist;
+    private final StreamTicketService streamTicketService;
 
     public JwtAuthenticationFilter(JwtUtil jwtUtil,
                                    CustomUserDetailsService userDetailsService,
-                                   TokenBlacklist tokenBlacklist) {
+                                   TokenBlacklist tokenBlacklist,
+                                   StreamTicketService streamTicketService) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
         this.tokenBlacklist = tokenBlacklist;
+        this.streamTicketService = streamTicketService;
     }
 
     @Override
@@ -41,6 +44,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
             jwt = authorizationHeader.substring(7);
+        } else if (request.getRequestURI().endsWith("/stream") && request.getParameter("ticket") != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // EventSource cannot set headers, so event streams pass a single-use stream ticket instead
+            String ticketUsername = null;
+            try {
+                ticketUsername = streamTicketService.redeem(request.getParameter("ticket"));
+            } catch (Exception e) {
+                logger.error("Error redeeming stream ticket", e);
+            }
+            if (ticketUsername != null) {
+                authenticate(request, this.userDetailsService.loadUserByUsername(ticketUsername));
+            }
+        }
+
+        if (jwt != null) {
             try {
                 username = jwtUtil.getUsernameFromToken(jwt);
             } catch (Exception e) {
@@ -52,19 +70,23 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
 
             if (jwtUtil.validateToken(jwt) && !tokenBlacklist.contains(jwt)) {
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities());
-
-                authentication.setDetails(
-                        new WebAuthenticationDetailsSource().buildDetails(request));
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                authenticate(request, userDetails);
             }
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private void authenticate(HttpServletRequest request, UserDetails userDetails) {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities());
+
+        authentication.setDetails(
+                new WebAuthenticationDetailsSource().buildDetails(request));
+
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
 }
\ No newline at end of file
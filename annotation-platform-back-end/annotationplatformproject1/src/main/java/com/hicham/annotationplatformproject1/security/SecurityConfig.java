@@ -1,5 +1,6 @@
 package com.hicham.annotationplatformproject1.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -42,7 +43,10 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        // Async dispatches of already authorized requests (event streams)
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .logout(logout -> logout
@@ -104,7 +108,8 @@ public class SecurityConfig {
     }
 
     @Bean
-    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtUtil jwtUtil, TokenBlacklist tokenBlacklist) {
-        return new JwtAuthenticationFilter(jwtUtil, userDetailsService, tokenBlacklist);
+    public JwtAuthenticationFilter jwtAuthenticationFilter(JwtUtil jwtUtil, TokenBlacklist tokenBlacklist,
+                                                           StreamTicketService streamTicketService) {
+        return new JwtAuthenticationFilter(jwtUtil, userDetailsService, tokenBlacklist, streamTicketService);
     }
 }
\ No newline at end of file
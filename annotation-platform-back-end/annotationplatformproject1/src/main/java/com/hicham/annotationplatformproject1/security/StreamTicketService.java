@@ -0,0 +1,49 @@
+package com.hicham.annotationplatformproject1.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Tickets for opening an event stream. EventSource cannot set headers, so the stream URL carries a
+ * ticket instead of the JWT: a random value, valid once and only on stream endpoints, that expires
+ * after a short TTL. Tickets are kept in Redis, so one issued by any node can be redeemed on another;
+ * clients fetch a new ticket before each (re)connection.
+ */
+@Component
+public class StreamTicketService {
+
+    private static final String KEY_PREFIX = "stream-ticket:";
+    private static final int TICKET_BYTES = 32;
+
+    private final SecureRandom random = new SecureRandom();
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ticketTtl;
+
+    public StreamTicketService(StringRedisTemplate redisTemplate,
+                               @Value("${live-updates.ticket-ttl:60s}") Duration ticketTtl) {
+        this.redisTemplate = redisTemplate;
+        this.ticketTtl = ticketTtl;
+    }
+
+    public String issue(String username) {
+        byte[] bytes = new byte[TICKET_BYTES];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        redisTemplate.opsForValue().set(KEY_PREFIX + ticket, username, ticketTtl);
+        return ticket;
+    }
+
+    /**
+     * Consumes a ticket (GETDEL, so two nodes cannot both redeem it).
+     *
+     * @return The username it was issued to, or null when it is unknown, expired or already used.
+     */
+    public String redeem(String ticket) {
+        return redisTemplate.opsForValue().getAndDelete(KEY_PREFIX + ticket);
+    }
+}
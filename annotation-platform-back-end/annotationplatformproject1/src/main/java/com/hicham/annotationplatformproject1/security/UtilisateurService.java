@@ -1,12 +1,14 @@
 package com.hicham.annotationplatformproject1.security;
 
 import com.hicham.annotationplatformproject1.dto.UtilisateurDTO;
+import com.hicham.annotationplatformproject1.event.UserCreatedEvent;
 import com.hicham.annotationplatformproject1.model.Utilisateur;
 import com.hicham.annotationplatformproject1.repository.TacheRepository;
 import com.hicham.annotationplatformproject1.repository.UtilisateurRepository;
 import com.hicham.annotationplatformproject1.service.ActivityLogService;
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -24,17 +26,23 @@ public class UtilisateurService {
     private final ActivityLogService activityLogService;
     private final TacheRepository tacheRepository;
     private final JavaMailSender mailSender;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomUserDetailsService userDetailsService;
 
     public UtilisateurService(UtilisateurRepository utilisateurRepository,
                               PasswordEncoder passwordEncoder,
                               ActivityLogService activityLogService,
                               TacheRepository tacheRepository,
-                              JavaMailSender mailSender) {
+                              JavaMailSender mailSender,
+                              ApplicationEventPublisher eventPublisher,
+                              CustomUserDetailsService userDetailsService) {
         this.utilisateurRepository = utilisateurRepository;
         this.passwordEncoder = passwordEncoder;
         this.activityLogService = activityLogService;
         this.tacheRepository = tacheRepository;
         this.mailSender = mailSender;
+        this.eventPublisher = eventPublisher;
+        this.userDetailsService = userDetailsService;
     }
 
     public UtilisateurDTO createAnnotateur(String username, String nom, String prenom, String email) throws MessagingException {
@@ -52,6 +60,13 @@ public class UtilisateurService {
             annotateur.setActive(true);
 
             Utilisateur savedAnnotateur = utilisateurRepository.save(annotateur);
+            eventPublisher.publishEvent(new UserCreatedEvent(
+                    savedAnnotateur.getId(),
+                    savedAnnotateur.getPrenom() + " " + savedAnnotateur.getNom(),
+                    savedAnnotateur.getRole(),
+                    savedAnnotateur.isActive(),
+                    savedAnnotateur.getCreatedAt()
+            ));
             sendWelcomeEmail(savedAnnotateur, rawPassword);
 
             activityLogService.logActivity(
@@ -88,6 +103,7 @@ public class UtilisateurService {
             String newPassword = generateRandomPassword(10);
             utilisateur.setPassword(passwordEncoder.encode(newPassword));
             utilisateurRepository.save(utilisateur);
+            userDetailsService.evict(utilisateur.getUsername());
 
             sendPasswordResetEmail(utilisateur, newPassword);
 
@@ -5,18 +5,32 @@ import com.hicham.annotationplatformproject1.model.Utilisateur;
 import com.hicham.annotationplatformproject1.repository.ActivityLogRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 
 @Service
 public class ActivityLogService {
 
+    private static final int RECENT_SIZE = 5;
+
     private final ActivityLogRepository activityLogRepository;
+    // Latest entries, newest first, so the dashboard does not query the log table
+    private final Deque<ActivityLog> recent = new ArrayDeque<>();
+    private boolean recentLoaded;
 
     public ActivityLogService(ActivityLogRepository activityLogRepository) {
         this.activityLogRepository = activityLogRepository;
     }
 
+    /**
+     * Saves an activity. It is listed among the recent activities once the transaction that saved it
+     * commits, so a rolled-back entry never shows on the dashboard.
+     */
     @Transactional
     public void logActivity(String action, String description, Utilisateur user) {
         ActivityLog log = new ActivityLog();
@@ -25,6 +39,16 @@ public class ActivityLogService {
         log.setUser(user);
         log.setTimestamp(LocalDateTime.now());
         activityLogRepository.save(log);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    addRecent(log);
+                }
+            });
+        } else {
+            addRecent(log);
+        }
     }
 
     @Transactional
@@ -32,4 +56,34 @@ public class ActivityLogService {
         // Pour les activités sans utilisateur spécifique (système)
         logActivity(action, description, null);
     }
-}
\ No newline at end of file
+
+    private void addRecent(ActivityLog log) {
+        synchronized (recent) {
+            recent.addFirst(log);
+            while (recent.size() > RECENT_SIZE) recent.removeLast();
+        }
+    }
+
+    /**
+     * Returns the 5 most recent activities, loading them from the database on first use.
+     */
+    public List<ActivityLog> getRecentActivities() {
+        synchronized (recent) {
+            if (recentLoaded) return List.copyOf(recent);
+        }
+        return reloadRecentActivities();
+    }
+
+    /**
+     * Reloads the recent activities from the database, picking up entries written by other instances.
+     */
+    public List<ActivityLog> reloadRecentActivities() {
+        List<ActivityLog> latest = activityLogRepository.findTop5ByOrderByTimestampDesc();
+        synchronized (recent) {
+            recent.clear();
+            recent.addAll(latest);
+            recentLoaded = true;
+            return List.copyOf(recent);
+        }
+    }
+}
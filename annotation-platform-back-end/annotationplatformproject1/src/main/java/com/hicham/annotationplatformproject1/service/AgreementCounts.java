@@ -0,0 +1,278 @@
+package com.hicham.annotationplatformproject1.service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Inter-annotator agreement counts of one dataset, over its classes in a fixed order (class indexes):
+ * a contingency table per pair of annotators, a class confusion matrix and the Fleiss sums, all kept
+ * in primitive arrays. {@link #add} updates them for one more label in time proportional to the labels
+ * already on the text pair; {@link #compute} counts everything from scratch with fork/join over the
+ * text pairs. Not thread-safe: callers synchronize.
+ */
+final class AgreementCounts {
+
+    private static final int LEAF_PAIRS = 1024;
+
+    /**
+     * Two annotators, first < second. Their table has the first annotator's class as row.
+     */
+    record AnnotatorPair(long first, long second) {
+    }
+
+    // Labels of one text pair, in the order they were counted
+    private static final class Ratings {
+        long[] annotators = new long[2];
+        int[] classes = new int[2];
+        int size;
+        int agreeingPairs; // Pairs of its labels that are the same class
+
+        boolean contains(long annotatorId) {
+            for (int i = 0; i < size; i++) {
+                if (annotators[i] == annotatorId) return true;
+            }
+            return false;
+        }
+
+        void append(long annotatorId, int classIndex) {
+            if (size == annotators.length) {
+                annotators = Arrays.copyOf(annotators, size * 2);
+                classes = Arrays.copyOf(classes, size * 2);
+            }
+            annotators[size] = annotatorId;
+            classes[size] = classIndex;
+            size++;
+        }
+    }
+
+    final int classCount;
+    private final Map<Long, Ratings> ratings = new HashMap<>();
+    final Map<AnnotatorPair, long[]> pairTables = new HashMap<>();
+    final long[] confusion; // classCount² cells, ordered pairs of labels given to the same text pair
+    final long[] fleissClassTotals; // Labels per class on the text pairs labeled at least twice
+    long annotations;
+    long overlappingPairs; // Text pairs labeled at least twice
+    double fleissAgreementSum; // Sum of the agreement ratio of the overlapping text pairs
+
+    AgreementCounts(int classCount) {
+        this.classCount = classCount;
+        this.confusion = new long[classCount * classCount];
+        this.fleissClassTotals = new long[classCount];
+    }
+
+    /**
+     * Counts one label.
+     *
+     * @return false when the annotator's label on this text pair was already counted.
+     */
+    boolean add(long coupeTexteId, long annotatorId, int classIndex) {
+        Ratings pair = ratings.computeIfAbsent(coupeTexteId, id -> new Ratings());
+        if (pair.contains(annotatorId)) return false;
+
+        int agreeing = 0;
+        for (int i = 0; i < pair.size; i++) {
+            long other = pair.annotators[i];
+            int otherClass = pair.classes[i];
+            if (otherClass == classIndex) agreeing++;
+            confusion[classIndex * classCount + otherClass]++;
+            confusion[otherClass * classCount + classIndex]++;
+            if (annotatorId < other) {
+                table(annotatorId, other)[classIndex * classCount + otherClass]++;
+            } else {
+                table(other, annotatorId)[otherClass * classCount + classIndex]++;
+            }
+        }
+
+        if (pair.size >= 2) {
+            fleissAgreementSum -= pair.agreeingPairs / combinations(pair.size);
+        } else if (pair.size == 1) {
+            overlappingPairs++;
+            fleissClassTotals[pair.classes[0]]++;
+        }
+        if (pair.size >= 1) fleissClassTotals[classIndex]++;
+        pair.agreeingPairs += agreeing;
+        pair.append(annotatorId, classIndex);
+        if (pair.size >= 2) fleissAgreementSum += pair.agreeingPairs / combinations(pair.size);
+        annotations++;
+        return true;
+    }
+
+    /**
+     * Counts a dataset's labels from scratch, the text pairs being split across the common fork/join pool.
+     *
+     * @param rows       Labels as {coupeTexteId, annotatorId, classeId}.
+     * @param classIndex Index of each class of the dataset; labels of other classes are ignored.
+     */
+    static AgreementCounts compute(int classCount, List<Object[]> rows, Map<Long, Integer> classIndex) {
+        Map<Long, Ratings> byPair = new HashMap<>();
+        for (Object[] row : rows) {
+            Integer index = classIndex.get((Long) row[2]);
+            if (index == null) continue;
+            long annotatorId = (Long) row[1];
+            Ratings pair = byPair.computeIfAbsent((Long) row[0], id -> new Ratings());
+            if (!pair.contains(annotatorId)) pair.append(annotatorId, index);
+        }
+
+        AgreementCounts counts = ForkJoinPool.commonPool()
+                .invoke(new CountTask(classCount, new ArrayList<>(byPair.values()), 0, byPair.size()));
+        counts.ratings.putAll(byPair);
+        return counts;
+    }
+
+    /**
+     * Whether both hold the same counts, up to rounding of the Fleiss sum.
+     */
+    boolean sameAs(AgreementCounts other) {
+        if (classCount != other.classCount
+                || annotations != other.annotations
+                || overlappingPairs != other.overlappingPairs
+                || !Arrays.equals(confusion, other.confusion)
+                || !Arrays.equals(fleissClassTotals, other.fleissClassTotals)
+                || Math.abs(fleissAgreementSum - other.fleissAgreementSum) > 1e-6 * Math.max(1, overlappingPairs)
+                || pairTables.size() != other.pairTables.size()) {
+            return false;
+        }
+        for (Map.Entry<AnnotatorPair, long[]> entry : pairTables.entrySet()) {
+            if (!Arrays.equals(entry.getValue(), other.pairTables.get(entry.getKey()))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Fleiss' kappa over the text pairs labeled at least twice (any number of annotators per text pair),
+     * or null when it is undefined.
+     */
+    Double fleissKappa() {
+        long labels = Arrays.stream(fleissClassTotals).sum();
+        if (overlappingPairs == 0 || labels == 0) return null;
+        double expected = 0;
+        for (long total : fleissClassTotals) {
+            double share = (double) total / labels;
+            expected += share * share;
+        }
+        if (expected >= 1) return null;
+        return (fleissAgreementSum / overlappingPairs - expected) / (1 - expected);
+    }
+
+    /**
+     * Share of the labels of a class that another annotator matched on the same text pair, or null
+     * when no label of the class was compared.
+     */
+    Double specificAgreement(int classIndex) {
+        long compared = 0;
+        for (int other = 0; other < classCount; other++) {
+            compared += confusion[classIndex * classCount + other];
+        }
+        return compared == 0 ? null : (double) confusion[classIndex * classCount + classIndex] / compared;
+    }
+
+    static long total(long[] table) {
+        return Arrays.stream(table).sum();
+    }
+
+    static Double observedAgreement(long[] table, int classCount) {
+        long total = total(table);
+        if (total == 0) return null;
+        long agreeing = 0;
+        for (int i = 0; i < classCount; i++) {
+            agreeing += table[i * classCount + i];
+        }
+        return (double) agreeing / total;
+    }
+
+    /**
+     * Cohen's kappa of a pair's contingency table, or null when it is undefined.
+     */
+    static Double cohenKappa(long[] table, int classCount) {
+        long total = total(table);
+        if (total == 0) return null;
+        double expected = 0;
+        for (int i = 0; i < classCount; i++) {
+            long row = 0;
+            long column = 0;
+            for (int j = 0; j < classCount; j++) {
+                row += table[i * classCount + j];
+                column += table[j * classCount + i];
+            }
+            expected += (double) row * column / ((double) total * total);
+        }
+        if (expected >= 1) return null;
+        return (observedAgreement(table, classCount) - expected) / (1 - expected);
+    }
+
+    private long[] table(long first, long second) {
+        return pairTables.computeIfAbsent(new AnnotatorPair(first, second), p -> new long[classCount * classCount]);
+    }
+
+    private static double combinations(int labels) {
+        return labels * (labels - 1) / 2.0;
+    }
+
+    private AgreementCounts merge(AgreementCounts other) {
+        for (int i = 0; i < confusion.length; i++) confusion[i] += other.confusion[i];
+        for (int i = 0; i < classCount; i++) fleissClassTotals[i] += other.fleissClassTotals[i];
+        other.pairTables.forEach((pair, table) -> pairTables.merge(pair, table, (mine, theirs) -> {
+            for (int i = 0; i < mine.length; i++) mine[i] += theirs[i];
+            return mine;
+        }));
+        annotations += other.annotations;
+        overlappingPairs += other.overlappingPairs;
+        fleissAgreementSum += other.fleissAgreementSum;
+        return this;
+    }
+
+    // Counts a range of text pairs directly from their labels, then merges the halves
+    private static final class CountTask extends RecursiveTask<AgreementCounts> {
+        private final int classCount;
+        private final List<Ratings> pairs;
+        private final int from;
+        private final int to;
+
+        CountTask(int classCount, List<Ratings> pairs, int from, int to) {
+            this.classCount = classCount;
+            this.pairs = pairs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected AgreementCounts compute() {
+            if (to - from > LEAF_PAIRS) {
+                int middle = (from + to) >>> 1;
+                CountTask left = new CountTask(classCount, pairs, from, middle);
+                left.fork();
+                AgreementCounts right = new CountTask(classCount, pairs, middle, to).compute();
+                return left.join().merge(right);
+            }
+
+            AgreementCounts counts = new AgreementCounts(classCount);
+            for (int p = from; p < to; p++) {
+                Ratings pair = pairs.get(p);
+                int agreeing = 0;
+                for (int i = 0; i < pair.size; i++) {
+                    for (int j = i + 1; j < pair.size; j++) {
+                        int a = pair.classes[i];
+                        int b = pair.classes[j];
+                        if (a == b) agreeing++;
+                        counts.confusion[a * classCount + b]++;
+                        counts.confusion[b * classCount + a]++;
+                        if (pair.annotators[i] < pair.annotators[j]) {
+                            counts.table(pair.annotators[i], pair.annotators[j])[a * classCount + b]++;
+                        } else {
+                            counts.table(pair.annotators[j], pair.annotators[i])[b * classCount + a]++;
+                        }
+                    }
+                }
+                pair.agreeingPairs = agreeing;
+                counts.annotations += pair.size;
+                if (pair.size >= 2) {
+                    counts.overlappingPairs++;
+                    for (int i = 0; i < pair.size; i++) counts.fleissClassTotals[pair.classes[i]]++;
+                    counts.fleissAgreementSum += agreeing / combinations(pair.size);
+                }
+            }
+            return counts;
+        }
+    }
+}
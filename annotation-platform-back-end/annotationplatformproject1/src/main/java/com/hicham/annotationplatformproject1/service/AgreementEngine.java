@@ -0,0 +1,216 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.dto.AgreementDTO;
+import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.event.AnnotationSavedEvent;
+import com.hicham.annotationplatformproject1.repository.AnnotationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inter-annotator agreement per dataset (Cohen's kappa per pair of annotators, Fleiss' kappa, class
+ * confusion matrix). A dataset's counts are computed from its labels on the first read, then kept current
+ * by the annotation events published after each commit. A scheduled job recounts every dataset read
+ * within the idle timeout with fork/join, counts the datasets whose incremental counts differed as
+ * agreement.verification.mismatches, and keeps the recount, which also absorbs the labels saved on
+ * other instances. Datasets not read within the idle timeout are dropped.
+ */
+@Component
+public class AgreementEngine {
+
+    private record Rating(long coupeTexteId, long annotatorId, long classeId) {
+    }
+
+    private static final class DatasetAgreement {
+        List<LabelSetCache.Label> labels;
+        Map<Long, Integer> classIndex;
+        AgreementCounts counts; // null until counted, or after a label outside the class set
+        List<Rating> pending; // Labels saved while a recount is running, replayed onto it
+        volatile long lastRead = System.nanoTime();
+    }
+
+    private final AnnotationRepository annotationRepository;
+    private final LabelSetCache labelSetCache;
+    private final ValidationService validationService;
+    private final RequestCoalescer requestCoalescer;
+    private final ActivityLogService activityLogService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration idleTimeout;
+    private final Counter mismatches;
+    private final Map<Long, DatasetAgreement> datasets = new ConcurrentHashMap<>();
+
+    public AgreementEngine(AnnotationRepository annotationRepository,
+                           LabelSetCache labelSetCache,
+                           ValidationService validationService,
+                           RequestCoalescer requestCoalescer,
+                           ActivityLogService activityLogService,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${agreement.idle-timeout:1h}") Duration idleTimeout) {
+        this.annotationRepository = annotationRepository;
+        this.labelSetCache = labelSetCache;
+        this.validationService = validationService;
+        this.requestCoalescer = requestCoalescer;
+        this.activityLogService = activityLogService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.idleTimeout = idleTimeout;
+        this.mismatches = meterRegistry.counter("agreement.verification.mismatches");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnnotationSaved(AnnotationSavedEvent event) {
+        DatasetAgreement dataset = datasets.get(event.getDatasetId());
+        if (dataset == null) return; // Not counted yet: the first read counts it from the database
+        Rating rating = new Rating(event.getCoupeTexteId(), event.getAnnotatorId(), event.getClasseChoisieId());
+        synchronized (dataset) {
+            if (dataset.pending != null) dataset.pending.add(rating);
+            if (dataset.counts != null && !apply(dataset.counts, dataset.classIndex, rating)) {
+                dataset.counts = null; // The class set changed: recount at the next read
+            }
+        }
+    }
+
+    /**
+     * Retrieves the agreement figures of a dataset, counting them on the first read.
+     *
+     * @param datasetId The ID of the dataset.
+     * @return ApiResponse with the figures, annotator pairs by decreasing number of text pairs in common.
+     */
+    public ApiResponse<AgreementDTO> getAgreement(Long datasetId) {
+        try {
+            validationService.validateDatasetHeader(datasetId);
+            DatasetAgreement dataset = datasets.computeIfAbsent(datasetId, id -> new DatasetAgreement());
+            dataset.lastRead = System.nanoTime();
+            AgreementDTO agreement;
+            synchronized (dataset) {
+                agreement = dataset.counts != null ? toDTO(datasetId, dataset) : null;
+            }
+            if (agreement == null) {
+                agreement = requestCoalescer.execute("agreement", () -> recount(datasetId, dataset), datasetId);
+            }
+            return ApiResponse.success("Agreement retrieved successfully", agreement);
+        } catch (Exception e) {
+            activityLogService.logActivity(
+                    "AGREEMENT_ERROR",
+                    "Failed to compute agreement for dataset " + datasetId + ": " + e.getMessage()
+            );
+            return ApiResponse.error("Failed to retrieve agreement: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Recounts the datasets read within the idle timeout and checks their incremental counts.
+     */
+    @Scheduled(initialDelayString = "${agreement.verify-interval-ms:3600000}",
+            fixedDelayString = "${agreement.verify-interval-ms:3600000}")
+    public void verify() {
+        long now = System.nanoTime();
+        datasets.forEach((datasetId, dataset) -> {
+            if (now - dataset.lastRead > idleTimeout.toNanos()) {
+                datasets.remove(datasetId, dataset);
+                return;
+            }
+            try {
+                requestCoalescer.execute("agreement", () -> recount(datasetId, dataset), datasetId);
+            } catch (RuntimeException e) {
+                activityLogService.logActivity(
+                        "AGREEMENT_VERIFY_ERROR",
+                        "Failed to recount agreement for dataset " + datasetId + ": " + e.getMessage()
+                );
+            }
+        });
+    }
+
+    /**
+     * Counts a dataset from the database and swaps its counts. Labels saved from the start of the count
+     * are recorded and replayed onto it; those the read already saw are ignored as duplicates.
+     */
+    private AgreementDTO recount(Long datasetId, DatasetAgreement dataset) {
+        synchronized (dataset) {
+            dataset.pending = new ArrayList<>();
+        }
+        try {
+            List<LabelSetCache.Label> labels = labelSetCache.getLabelSet(datasetId);
+            Map<Long, Integer> classIndex = new HashMap<>();
+            for (int i = 0; i < labels.size(); i++) {
+                classIndex.put(labels.get(i).id(), i);
+            }
+            List<Object[]> rows = readOnlyTransaction.execute(status ->
+                    annotationRepository.findAgreementRowsByDatasetId(datasetId));
+            AgreementCounts recounted = AgreementCounts.compute(labels.size(), rows, classIndex);
+
+            synchronized (dataset) {
+                dataset.pending.forEach(rating -> apply(recounted, classIndex, rating));
+                if (dataset.counts != null && labels.equals(dataset.labels) && !dataset.counts.sameAs(recounted)) {
+                    mismatches.increment();
+                    activityLogService.logActivity(
+                            "AGREEMENT_MISMATCH",
+                            "Incremental agreement counts of dataset " + datasetId + " differed from a full recount"
+                    );
+                }
+                dataset.labels = labels;
+                dataset.classIndex = classIndex;
+                dataset.counts = recounted;
+                return toDTO(datasetId, dataset);
+            }
+        } finally {
+            synchronized (dataset) {
+                dataset.pending = null;
+            }
+        }
+    }
+
+    private static boolean apply(AgreementCounts counts, Map<Long, Integer> classIndex, Rating rating) {
+        Integer index = classIndex.get(rating.classeId());
+        if (index == null) return false;
+        counts.add(rating.coupeTexteId(), rating.annotatorId(), index);
+        return true;
+    }
+
+    // Called with the dataset's monitor held
+    private static AgreementDTO toDTO(Long datasetId, DatasetAgreement dataset) {
+        AgreementCounts counts = dataset.counts;
+        int classCount = counts.classCount;
+
+        List<AgreementDTO.ClassAgreement> classes = new ArrayList<>(classCount);
+        long[][] confusionMatrix = new long[classCount][];
+        for (int i = 0; i < classCount; i++) {
+            LabelSetCache.Label label = dataset.labels.get(i);
+            classes.add(new AgreementDTO.ClassAgreement(label.id(), label.nomClasse(), counts.specificAgreement(i)));
+            confusionMatrix[i] = Arrays.copyOfRange(counts.confusion, i * classCount, (i + 1) * classCount);
+        }
+
+        List<AgreementDTO.AnnotatorAgreement> annotatorPairs = new ArrayList<>(counts.pairTables.size());
+        counts.pairTables.forEach((pair, table) -> annotatorPairs.add(new AgreementDTO.AnnotatorAgreement(
+                pair.first(),
+                pair.second(),
+                AgreementCounts.total(table),
+                AgreementCounts.observedAgreement(table, classCount),
+                AgreementCounts.cohenKappa(table, classCount)
+        )));
+        annotatorPairs.sort(Comparator.comparingLong(AgreementDTO.AnnotatorAgreement::getSharedPairs).reversed()
+                .thenComparing(AgreementDTO.AnnotatorAgreement::getAnnotatorId1)
+                .thenComparing(AgreementDTO.AnnotatorAgreement::getAnnotatorId2));
+
+        return new AgreementDTO(
+                datasetId,
+                counts.annotations,
+                counts.overlappingPairs,
+                counts.fleissKappa(),
+                classes,
+                confusionMatrix,
+                annotatorPairs
+        );
+    }
+}
@@ -0,0 +1,280 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hicham.annotationplatformproject1.dto.AnnotationTrendPointDTO;
+import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.model.AnnotationRollup;
+import com.hicham.annotationplatformproject1.model.StatisticsSnapshot;
+import com.hicham.annotationplatformproject1.repository.AnnotationRepository;
+import com.hicham.annotationplatformproject1.repository.AnnotationRollupRepository;
+import com.hicham.annotationplatformproject1.repository.StatisticsSnapshotRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Maintains the hourly, daily and monthly annotation rollups and serves trends from them.
+ * Annotations are added to their rollups in the transaction that saves them, with one batched upsert,
+ * so the rollups never drift from the annotation table. Annotations that predate the rollups are
+ * backfilled on startup, before the statistics engine loads its trend from them; the backfill records
+ * its progress with each page, so one that fails partway resumes on the next startup.
+ */
+@Service
+public class AnnotationRollupService {
+
+    private static final String BACKFILL_LOCK_NAME = "annotation-rollup-backfill";
+    private static final String BACKFILL_PROGRESS_NAME = "annotation-rollup-backfill";
+    private static final int BACKFILL_PAGE_SIZE = 5000;
+    private static final int MAX_TREND_BUCKETS = 10_000;
+
+    /**
+     * One annotation to add to its rollups.
+     */
+    public record Labeled(Long datasetId, Long annotatorId, LocalDateTime annotatedAt, Long durationInSeconds) {
+    }
+
+    /**
+     * The annotations up to upToId predate the rollups; those up to afterId are already in them.
+     */
+    record BackfillProgress(long upToId, long afterId) {
+        boolean done() {
+            return afterId >= upToId;
+        }
+    }
+
+    private final AnnotationRollupRepository annotationRollupRepository;
+    private final AnnotationRepository annotationRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final ActivityLogService activityLogService;
+    private final StatisticsSnapshotRepository statisticsSnapshotRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Long backfillUpToId; // Set when a backfill is to start or resume on this node
+
+    public AnnotationRollupService(AnnotationRollupRepository annotationRollupRepository,
+                                   AnnotationRepository annotationRepository,
+                                   SchedulerLockService schedulerLockService,
+                                   ActivityLogService activityLogService,
+                                   StatisticsSnapshotRepository statisticsSnapshotRepository,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager) {
+        this.annotationRollupRepository = annotationRollupRepository;
+        this.annotationRepository = annotationRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.activityLogService = activityLogService;
+        this.statisticsSnapshotRepository = statisticsSnapshotRepository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Adds annotations to their rollups with one batched statement. Must be called in the transaction
+     * that saves them.
+     */
+    public void addToRollups(List<Labeled> annotations) {
+        Map<RollupKey, Increment> increments = new LinkedHashMap<>();
+        for (Labeled annotation : annotations) {
+            Increment increment = new Increment(1, annotation.durationInSeconds() != null ? 1 : 0,
+                    annotation.durationInSeconds() != null ? annotation.durationInSeconds() : 0);
+            for (AnnotationRollup.Granularity granularity : AnnotationRollup.Granularity.values()) {
+                increments.merge(new RollupKey(granularity, granularity.truncate(annotation.annotatedAt()),
+                        annotation.datasetId(), annotation.annotatorId()), increment, Increment::plus);
+            }
+        }
+
+        List<AnnotationRollup> rollups = new ArrayList<>(increments.size());
+        increments.forEach((key, increment) -> rollups.add(new AnnotationRollup(key.granularity(), key.bucketStart(),
+                key.datasetId(), key.annotatorId(), increment.count(), increment.timedCount(), increment.totalDuration())));
+        annotationRollupRepository.addToRollups(rollups);
+    }
+
+    /**
+     * Decides, before this node accepts any request, whether a backfill is needed: one recorded as
+     * unfinished resumes; otherwise, when the rollup table is empty, every annotation up to the last one
+     * predates the rollups, and every later one is added by its own transaction.
+     */
+    @PostConstruct
+    public void captureBackfillBound() {
+        backfillUpToId = transactionTemplate.execute(status -> {
+            Optional<BackfillProgress> progress = readBackfillProgress();
+            if (progress.isPresent()) {
+                return progress.get().done() ? null : progress.get().upToId();
+            }
+            return annotationRollupRepository.count() == 0 ? annotationRepository.findMaxId() : null;
+        });
+    }
+
+    /**
+     * Backfills the annotations that predate the rollups. Runs before the other startup listeners, so
+     * that the statistics engine builds its trend from complete rollups.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfillIfNeeded() {
+        Long upToId = backfillUpToId;
+        if (upToId != null) backfill(upToId);
+    }
+
+    /**
+     * Adds the annotations up to the given ID to the rollups, one page per transaction, each recording
+     * how far the backfill got. A backfill already recorded, by this node or another, keeps its own
+     * bound and resumes after its last page.
+     */
+    void backfill(long upToId) {
+        if (!schedulerLockService.tryLock(BACKFILL_LOCK_NAME, Duration.ofHours(1))) return;
+        try {
+            BackfillProgress progress = transactionTemplate.execute(status -> readBackfillProgress())
+                    .orElse(new BackfillProgress(upToId, 0));
+            long annotations = 0;
+            while (!progress.done()) {
+                List<Object[]> page = annotationRepository.findRollupSourcePage(
+                        progress.afterId(), progress.upToId(), PageRequest.of(0, BACKFILL_PAGE_SIZE));
+                long afterId = page.isEmpty() ? progress.upToId() : (Long) page.get(page.size() - 1)[0];
+                List<Labeled> labeled = new ArrayList<>(page.size());
+                for (Object[] row : page) {
+                    if (row[1] == null || row[2] == null || row[3] == null) continue;
+                    labeled.add(new Labeled((Long) row[1], (Long) row[2], (LocalDateTime) row[3], (Long) row[4]));
+                }
+                BackfillProgress next = new BackfillProgress(progress.upToId(), afterId);
+                transactionTemplate.executeWithoutResult(status -> {
+                    addToRollups(labeled);
+                    writeBackfillProgress(next);
+                });
+                progress = next;
+                annotations += labeled.size();
+            }
+            backfillUpToId = null;
+
+            if (annotations > 0) {
+                activityLogService.logActivity(
+                        "ROLLUPS_BACKFILLED",
+                        "Built annotation rollups from " + annotations + " existing annotations"
+                );
+            }
+        } catch (Exception e) {
+            activityLogService.logActivity("ROLLUP_BACKFILL_ERROR", "Failed to backfill annotation rollups: " + e.getMessage());
+        } finally {
+            schedulerLockService.unlock(BACKFILL_LOCK_NAME);
+        }
+    }
+
+    private Optional<BackfillProgress> readBackfillProgress() {
+        return statisticsSnapshotRepository.findById(BACKFILL_PROGRESS_NAME).map(snapshot -> {
+            try {
+                return objectMapper.readValue(snapshot.getPayload(), BackfillProgress.class);
+            } catch (Exception e) {
+                throw new IllegalStateException("Unreadable rollup backfill progress", e);
+            }
+        });
+    }
+
+    private void writeBackfillProgress(BackfillProgress progress) {
+        StatisticsSnapshot snapshot = new StatisticsSnapshot();
+        snapshot.setName(BACKFILL_PROGRESS_NAME);
+        try {
+            snapshot.setPayload(objectMapper.writeValueAsString(progress));
+        } catch (Exception e) {
+            throw new IllegalStateException("Unwritable rollup backfill progress", e);
+        }
+        snapshot.setTakenAt(LocalDateTime.now());
+        statisticsSnapshotRepository.save(snapshot);
+    }
+
+    /**
+     * Retrieves the annotation trend between two days (inclusive), one point per bucket, empty buckets included.
+     *
+     * @param granularity HOUR, DAY or MONTH.
+     * @param datasetId   Optional dataset filter.
+     * @param annotatorId Optional annotator filter.
+     * @return ApiResponse with the trend points in chronological order.
+     */
+    public ApiResponse<List<AnnotationTrendPointDTO>> getTrend(LocalDate from, LocalDate to, String granularity,
+                                                                Long datasetId, Long annotatorId) {
+        try {
+            AnnotationRollup.Granularity level;
+            try {
+                level = AnnotationRollup.Granularity.valueOf(granularity.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ApiResponse.error("Granularity must be one of HOUR, DAY, MONTH");
+            }
+            if (to.isBefore(from)) {
+                return ApiResponse.error("The end date must not be before the start date");
+            }
+
+            LocalDateTime start = level.truncate(from.atStartOfDay());
+            LocalDateTime end = to.plusDays(1).atStartOfDay();
+            List<LocalDateTime> buckets = new ArrayList<>();
+            for (LocalDateTime bucket = start; bucket.isBefore(end); bucket = level.next(bucket)) {
+                if (buckets.size() == MAX_TREND_BUCKETS) {
+                    return ApiResponse.error("Too many buckets, use a coarser granularity or a shorter range");
+                }
+                buckets.add(bucket);
+            }
+
+            Map<LocalDateTime, Object[]> rows = new HashMap<>();
+            for (Object[] row : annotationRollupRepository.sumByBucket(level, start, end, datasetId, annotatorId)) {
+                rows.put((LocalDateTime) row[0], row);
+            }
+
+            List<AnnotationTrendPointDTO> trend = new ArrayList<>(buckets.size());
+            for (LocalDateTime bucket : buckets) {
+                Object[] row = rows.get(bucket);
+                if (row == null) {
+                    trend.add(new AnnotationTrendPointDTO(bucket.toString(), 0, 0, null, 0));
+                    continue;
+                }
+                long timedCount = ((Number) row[2]).longValue();
+                long totalDuration = ((Number) row[3]).longValue();
+                trend.add(new AnnotationTrendPointDTO(
+                        bucket.toString(),
+                        ((Number) row[1]).longValue(),
+                        totalDuration,
+                        timedCount > 0 ? (double) totalDuration / timedCount : null,
+                        ((Number) row[4]).longValue()
+                ));
+            }
+            return ApiResponse.success("Annotation trend retrieved successfully", trend);
+        } catch (Exception e) {
+            activityLogService.logActivity("ANNOTATION_TREND_ERROR", "Failed to retrieve annotation trend: " + e.getMessage());
+            return ApiResponse.error("Failed to retrieve annotation trend: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Number of annotations per day from the daily rollups.
+     *
+     * @param from First day.
+     * @param to   Last day (inclusive).
+     * @return Counts of the days that have annotations.
+     */
+    public Map<LocalDate, Long> countByDay(LocalDate from, LocalDate to) {
+        Map<LocalDate, Long> counts = new HashMap<>();
+        for (Object[] row : annotationRollupRepository.sumByBucket(AnnotationRollup.Granularity.DAY,
+                from.atStartOfDay(), to.plusDays(1).atStartOfDay(), null, null)) {
+            counts.put(((LocalDateTime) row[0]).toLocalDate(), ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    private record RollupKey(AnnotationRollup.Granularity granularity, LocalDateTime bucketStart,
+                             Long datasetId, Long annotatorId) {
+    }
+
+    private record Increment(long count, long timedCount, long totalDuration) {
+        Increment plus(Increment other) {
+            return new Increment(count + other.count, timedCount + other.timedCount, totalDuration + other.totalDuration);
+        }
+    }
+}
@@ -1,79 +1,111 @@
 package com.hicham.annotationplatformproject1.service;
 
 import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.dto.AnnotationBatchRequest;
+import com.hicham.annotationplatformproject1.dto.AnnotationBatchResultDTO;
 import com.hicham.annotationplatformproject1.dto.AnnotationRequest;
+import com.hicham.annotationplatformproject1.event.AnnotationSavedEvent;
 import com.hicham.annotationplatformproject1.model.*;
 import com.hicham.annotationplatformproject1.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.*;
 
 @Service
 public class AnnotationService {
 
+    static final String ALREADY_ANNOTATED = "This text pair has already been annotated by this user";
+    private static final int MAX_BATCH_ITEMS = 1000;
+
     private final AnnotationRepository annotationRepository;
     private final CoupeTexteRepository coupeTexteRepository;
     private final UtilisateurRepository utilisateurRepository;
-    private final ClassePersistanteRepository classePersistanteRepository;
     private final TacheRepository tacheRepository;
     private final ActivityLogService activityLogService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LabelSetCache labelSetCache;
+    private final TimeOnTaskTracker timeOnTaskTracker;
+    private final AnnotationRollupService annotationRollupService;
 
     public AnnotationService(AnnotationRepository annotationRepository,
                              CoupeTexteRepository coupeTexteRepository,
                              UtilisateurRepository utilisateurRepository,
-                             ClassePersistanteRepository classePersistanteRepository,
                              TacheRepository tacheRepository,
-                             ActivityLogService activityLogService) {
+                             ActivityLogService activityLogService,
+                             ApplicationEventPublisher eventPublisher,
+                             LabelSetCache labelSetCache,
+                             TimeOnTaskTracker timeOnTaskTracker,
+                             AnnotationRollupService annotationRollupService) {
         this.annotationRepository = annotationRepository;
         this.coupeTexteRepository = coupeTexteRepository;
         this.utilisateurRepository = utilisateurRepository;
-        this.classePersistanteRepository = classePersistanteRepository;
         this.tacheRepository = tacheRepository;
         this.activityLogService = activityLogService;
+        this.eventPublisher = eventPublisher;
+        this.labelSetCache = labelSetCache;
+        this.timeOnTaskTracker = timeOnTaskTracker;
+        this.annotationRollupService = annotationRollupService;
     }
 
+    /**
+     * Saves one annotation and closes the matching task.
+     * The annotation is written with a single validating INSERT (duplicates are caught by the
+     * (pair, annotator) unique constraint), the task with one conditional UPDATE and the rollups with
+     * one batched upsert; the detailed lookups only run to explain a rejected insert.
+     */
     @Transactional
     public ApiResponse<String> saveAnnotation(AnnotationRequest request) {
         try {
-            System.out.println("couple text id " + request.getCoupeTexteId());
-            CoupeTexte coupeTexte = coupeTexteRepository.findById(request.getCoupeTexteId())
-                    .orElseThrow(() -> new RuntimeException("CoupeTexte not found"));
-
-            Utilisateur annotateur = utilisateurRepository.findById(request.getAnnotateurId())
-                    .filter(u -> u.getRole() == Utilisateur.Role.ANNOTATOR)
-                    .orElseThrow(() -> new RuntimeException("Annotator not found or invalid"));
-
-            ClassePersistante classe = classePersistanteRepository.findById(request.getClasseChoisieId())
+            LabelSetCache.Label classe = labelSetCache.getLabel(request.getClasseChoisieId())
                     .orElseThrow(() -> new RuntimeException("Classe not found"));
 
-            if (annotationRepository.existsByCoupeTexteIdAndAnnotateurId(request.getCoupeTexteId(), request.getAnnotateurId())) {
-                return ApiResponse.error("This text pair has already been annotated by this user");
+            LocalDateTime now = LocalDateTime.now();
+            Duration timeOnTask = timeOnTaskTracker.elapsed(request.getAnnotateurId(), request.getCoupeTexteId(), now);
+            boolean inserted;
+            try {
+                inserted = annotationRepository.insertAnnotation(
+                        request.getCoupeTexteId(), request.getAnnotateurId(), classe.id(), classe.datasetId(), now,
+                        timeOnTask != null ? timeOnTask.toSeconds() : null);
+            } catch (DuplicateKeyException e) {
+                return ApiResponse.error(ALREADY_ANNOTATED);
+            }
+            if (!inserted) {
+                throw new RuntimeException(explainRejectedAnnotation(request));
             }
 
-            Annotation annotation = new Annotation();
-            annotation.setCoupeTexte(coupeTexte);
-            annotation.setAnnotateur(annotateur);
-            annotation.setClasseChoisie(classe);
-            annotation.setAnnotateAt(LocalDateTime.now());
-            annotationRepository.save(annotation);
+            boolean taskCompleted = tacheRepository.completeTask(
+                    request.getCoupeTexteId(), request.getAnnotateurId(), Tache.StatutTache.TERMINEE, now) > 0;
+            annotationRollupService.addToRollups(List.of(new AnnotationRollupService.Labeled(
+                    classe.datasetId(), request.getAnnotateurId(), now,
+                    timeOnTask != null ? timeOnTask.toSeconds() : null)));
+            timeOnTaskTracker.completed(classe.datasetId(), request.getAnnotateurId(), request.getCoupeTexteId(), timeOnTask);
 
-            tacheRepository.findByCoupeTexteIdAndAnnotateurId(request.getCoupeTexteId(), request.getAnnotateurId())
-                    .ifPresent(tache -> {
-                        tache.setStatut(Tache.StatutTache.TERMINEE);
-                        tache.setDateFin(LocalDateTime.now());
-                        tacheRepository.save(tache);
-                    });
+            eventPublisher.publishEvent(new AnnotationSavedEvent(
+                    classe.datasetId(),
+                    request.getCoupeTexteId(),
+                    request.getAnnotateurId(),
+                    classe.id(),
+                    now,
+                    timeOnTask != null ? timeOnTask.toSeconds() : null,
+                    taskCompleted
+            ));
 
             activityLogService.logActivity(
                     "ANNOTATION_CREATED",
                     "Annotation created for text pair: " + request.getCoupeTexteId() +
-                            " with class: " + classe.getNomClasse(),
-                    annotateur
+                            " with class: " + classe.nomClasse(),
+                    utilisateurRepository.getReferenceById(request.getAnnotateurId())
             );
 
             return ApiResponse.success("Annotation saved successfully", null);
         } catch (Exception e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly(); // Not without its task and rollups
             activityLogService.logActivity(
                     "ANNOTATION_ERROR",
                     "Failed to create annotation: " + e.getMessage()
@@ -81,4 +113,151 @@ public class AnnotationService {
             return ApiResponse.error("Failed to save annotation: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Finds why the validating insert matched nothing, with the same messages as the checks it replaces.
+     */
+    private String explainRejectedAnnotation(AnnotationRequest request) {
+        if (!coupeTexteRepository.existsById(request.getCoupeTexteId())) {
+            return "CoupeTexte not found";
+        }
+        boolean annotator = utilisateurRepository.findById(request.getAnnotateurId())
+                .filter(u -> u.getRole() == Utilisateur.Role.ANNOTATOR)
+                .isPresent();
+        return annotator ? "Classe not found in the dataset of this text pair" : "Annotator not found or invalid";
+    }
+
+    /**
+     * Saves many annotations of one annotator in a single transaction.
+     * Items are validated against the pairs, the annotator's existing labels and the cached class
+     * sets; valid ones are inserted in one JDBC batch and their tasks closed with one UPDATE.
+     * Invalid items are reported individually and do not prevent the others from being saved.
+     */
+    @Transactional
+    public ApiResponse<AnnotationBatchResultDTO> saveAnnotations(AnnotationBatchRequest request) {
+        try {
+            List<AnnotationBatchRequest.Item> items = request.getItems();
+            if (items == null || items.isEmpty()) {
+                return ApiResponse.error("No annotations to save");
+            }
+            if (items.size() > MAX_BATCH_ITEMS) {
+                return ApiResponse.error("Too many annotations in one batch (max " + MAX_BATCH_ITEMS + ")");
+            }
+
+            Long annotatorId = request.getAnnotatorId();
+            Utilisateur annotateur = utilisateurRepository.findById(annotatorId)
+                    .filter(u -> u.getRole() == Utilisateur.Role.ANNOTATOR)
+                    .orElseThrow(() -> new RuntimeException("Annotator not found or invalid"));
+
+            List<Long> coupeTexteIds = items.stream()
+                    .map(AnnotationBatchRequest.Item::getCoupeTexteId)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .toList();
+            Map<Long, Long> datasetByPair = new HashMap<>();
+            Set<Long> alreadyAnnotated = new HashSet<>();
+            Map<Long, LocalDateTime> openTasks = new HashMap<>(); // Serve time by pair, null when not served yet
+            if (!coupeTexteIds.isEmpty()) {
+                for (Object[] row : coupeTexteRepository.findDatasetIdsByIdIn(coupeTexteIds)) {
+                    datasetByPair.put((Long) row[0], (Long) row[1]);
+                }
+                alreadyAnnotated.addAll(annotationRepository.findAnnotatedCoupeTexteIds(annotatorId, coupeTexteIds));
+                for (Object[] row : tacheRepository.findOpenTasks(annotatorId, coupeTexteIds, Tache.StatutTache.TERMINEE)) {
+                    openTasks.put((Long) row[0], (LocalDateTime) row[1]);
+                }
+            }
+
+            List<AnnotationBatchResultDTO.ItemResult> results = new ArrayList<>(items.size());
+            List<Object[]> rows = new ArrayList<>();
+            List<AnnotationBatchRequest.Item> accepted = new ArrayList<>();
+            List<Duration> timesOnTask = new ArrayList<>();
+            LocalDateTime now = LocalDateTime.now();
+            for (AnnotationBatchRequest.Item item : items) {
+                String error = validateItem(item, datasetByPair, alreadyAnnotated);
+                if (error != null) {
+                    results.add(new AnnotationBatchResultDTO.ItemResult(item.getCoupeTexteId(), false, error));
+                    continue;
+                }
+                alreadyAnnotated.add(item.getCoupeTexteId()); // Rejects duplicates within the batch
+                // A duration reported by the client wins: with prefetched batches the server only knows when the batch was served
+                Duration timeOnTask = item.getDurationInSeconds() != null
+                        ? Duration.ofSeconds(item.getDurationInSeconds())
+                        : timeOnTaskTracker.elapsed(annotatorId, item.getCoupeTexteId(), now,
+                                openTasks.get(item.getCoupeTexteId()));
+                timesOnTask.add(timeOnTask);
+                rows.add(new Object[]{item.getCoupeTexteId(), item.getClasseChoisieId(),
+                        timeOnTask != null ? timeOnTask.toSeconds() : null});
+                accepted.add(item);
+                results.add(new AnnotationBatchResultDTO.ItemResult(item.getCoupeTexteId(), true, "Annotation saved"));
+            }
+
+            if (!accepted.isEmpty()) {
+                List<Long> acceptedPairIds = accepted.stream().map(AnnotationBatchRequest.Item::getCoupeTexteId).toList();
+
+                annotationRepository.insertAnnotations(annotatorId, now, rows);
+                tacheRepository.completeTasks(annotatorId, acceptedPairIds, Tache.StatutTache.TERMINEE, now);
+                List<AnnotationRollupService.Labeled> labeled = new ArrayList<>(accepted.size());
+                for (int i = 0; i < accepted.size(); i++) {
+                    labeled.add(new AnnotationRollupService.Labeled(datasetByPair.get(accepted.get(i).getCoupeTexteId()),
+                            annotatorId, now, timesOnTask.get(i) != null ? timesOnTask.get(i).toSeconds() : null));
+                }
+                annotationRollupService.addToRollups(labeled);
+
+                for (int i = 0; i < accepted.size(); i++) {
+                    AnnotationBatchRequest.Item item = accepted.get(i);
+                    timeOnTaskTracker.completed(datasetByPair.get(item.getCoupeTexteId()), annotatorId,
+                            item.getCoupeTexteId(), timesOnTask.get(i));
+                    eventPublisher.publishEvent(new AnnotationSavedEvent(
+                            datasetByPair.get(item.getCoupeTexteId()),
+                            item.getCoupeTexteId(),
+                            annotatorId,
+                            item.getClasseChoisieId(),
+                            now,
+                            timesOnTask.get(i) != null ? timesOnTask.get(i).toSeconds() : null,
+                            openTasks.containsKey(item.getCoupeTexteId())
+                    ));
+                }
+            }
+
+            AnnotationBatchResultDTO result = new AnnotationBatchResultDTO(
+                    accepted.size(), items.size() - accepted.size(), results);
+            activityLogService.logActivity(
+                    "ANNOTATIONS_BATCH_CREATED",
+                    "Saved " + result.getSaved() + " annotations, rejected " + result.getRejected(),
+                    annotateur
+            );
+            return ApiResponse.success("Annotations processed", result);
+        } catch (Exception e) {
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            activityLogService.logActivity(
+                    "ANNOTATION_ERROR",
+                    "Failed to save annotation batch: " + e.getMessage()
+            );
+            return ApiResponse.error("Failed to save annotations: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns why a batch item cannot be saved, or null when it is valid.
+     */
+    private String validateItem(AnnotationBatchRequest.Item item, Map<Long, Long> datasetByPair, Set<Long> alreadyAnnotated) {
+        if (item.getCoupeTexteId() == null || item.getClasseChoisieId() == null) {
+            return "coupeTexteId and classeChoisieId are required";
+        }
+        Long datasetId = datasetByPair.get(item.getCoupeTexteId());
+        if (datasetId == null) {
+            return "CoupeTexte not found";
+        }
+        if (alreadyAnnotated.contains(item.getCoupeTexteId())) {
+            return ALREADY_ANNOTATED;
+        }
+        Optional<LabelSetCache.Label> classe = labelSetCache.getLabel(item.getClasseChoisieId());
+        if (classe.isEmpty() || !datasetId.equals(classe.get().datasetId())) {
+            return "Classe not found in the dataset of this text pair";
+        }
+        if (item.getDurationInSeconds() != null && item.getDurationInSeconds() < 0) {
+            return "durationInSeconds cannot be negative";
+        }
+        return null;
+    }
+}
@@ -0,0 +1,137 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hicham.annotationplatformproject1.dto.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Applies annotation operations sent by offline-capable clients exactly once.
+ * Each operation carries an idempotency key; the outcome is remembered in a bounded dedup store,
+ * so a retried operation gets its original acknowledgement back instead of being re-applied.
+ * Once a key has been evicted, the (pair, annotator) unique constraint still reports the retry
+ * as a DUPLICATE.
+ */
+@Service
+public class AnnotationSyncService {
+
+    private static final int MAX_KEYS = 200_000;
+    private static final Duration KEY_RETENTION = Duration.ofHours(24);
+    private static final int MAX_DELTA_TASKS = 50;
+
+    // Placeholder for keys whose operation is being applied by a concurrent request
+    private static final AnnotationSyncResponse.Ack IN_FLIGHT =
+            new AnnotationSyncResponse.Ack(null, AnnotationSyncResponse.Status.DUPLICATE, null);
+
+    private final AnnotationService annotationService;
+    private final TacheService tacheService;
+    private final ActivityLogService activityLogService;
+    private final Cache<String, AnnotationSyncResponse.Ack> processedKeys;
+
+    public AnnotationSyncService(AnnotationService annotationService,
+                                 TacheService tacheService,
+                                 ActivityLogService activityLogService,
+                                 MeterRegistry meterRegistry) {
+        this.annotationService = annotationService;
+        this.tacheService = tacheService;
+        this.activityLogService = activityLogService;
+        this.processedKeys = Caffeine.newBuilder()
+                .maximumSize(MAX_KEYS)
+                .expireAfterWrite(KEY_RETENTION)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, processedKeys, "annotationSyncKeys");
+    }
+
+    /**
+     * Applies the new operations of a sync request and returns one ack per operation, in order,
+     * plus the annotator's open tasks after the request cursor when a dataset is given.
+     */
+    public ApiResponse<AnnotationSyncResponse> sync(AnnotationSyncRequest request) {
+        List<AnnotationSyncRequest.Operation> operations =
+                request.getOperations() != null ? request.getOperations() : List.of();
+        Long annotatorId = request.getAnnotatorId();
+        if (annotatorId == null) {
+            return ApiResponse.error("annotatorId is required");
+        }
+
+        AnnotationSyncResponse.Ack[] acks = new AnnotationSyncResponse.Ack[operations.size()];
+        Set<String> seen = new HashSet<>();
+        List<String> reserved = new ArrayList<>();
+        List<Integer> toApply = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            String key = operations.get(i).getIdempotencyKey();
+            if (key == null || key.isBlank()) {
+                acks[i] = new AnnotationSyncResponse.Ack(key, AnnotationSyncResponse.Status.REJECTED, "idempotencyKey is required");
+                continue;
+            }
+            if (!seen.add(key)) {
+                acks[i] = new AnnotationSyncResponse.Ack(key, AnnotationSyncResponse.Status.DUPLICATE, null);
+                continue;
+            }
+            AnnotationSyncResponse.Ack previous = processedKeys.asMap().putIfAbsent(storeKey(annotatorId, key), IN_FLIGHT);
+            if (previous != null) {
+                acks[i] = previous != IN_FLIGHT
+                        ? previous
+                        : new AnnotationSyncResponse.Ack(key, AnnotationSyncResponse.Status.DUPLICATE, null);
+                continue;
+            }
+            reserved.add(key);
+            toApply.add(i);
+        }
+
+        if (!toApply.isEmpty()) {
+            ApiResponse<AnnotationBatchResultDTO> applied = annotationService.saveAnnotations(
+                    new AnnotationBatchRequest(annotatorId, toApply.stream()
+                            .map(operations::get)
+                            .map(op -> new AnnotationBatchRequest.Item(
+                                    op.getCoupeTexteId(), op.getClasseChoisieId(), op.getDurationInSeconds()))
+                            .toList()));
+            if (!applied.isSuccess()) {
+                // Nothing was written: release the keys so the client can retry them
+                reserved.forEach(key -> processedKeys.invalidate(storeKey(annotatorId, key)));
+                return ApiResponse.error(applied.getMessage());
+            }
+
+            List<AnnotationBatchResultDTO.ItemResult> results = applied.getData().getResults();
+            for (int i = 0; i < toApply.size(); i++) {
+                int index = toApply.get(i);
+                String key = operations.get(index).getIdempotencyKey();
+                acks[index] = toAck(key, results.get(i));
+                processedKeys.put(storeKey(annotatorId, key), acks[index]);
+            }
+        }
+
+        TaskBatchDTO deltas = null;
+        if (request.getDatasetId() != null) {
+            ApiResponse<TaskBatchDTO> batch = tacheService.getTaskBatch(
+                    annotatorId, request.getDatasetId(), request.getCursor(), MAX_DELTA_TASKS, true);
+            deltas = batch.isSuccess() ? batch.getData() : null;
+        }
+
+        activityLogService.logActivity(
+                "ANNOTATIONS_SYNCED",
+                "Synced " + operations.size() + " operations (" + toApply.size() + " new) for annotator ID: " + annotatorId
+        );
+        return ApiResponse.success("Sync completed", new AnnotationSyncResponse(Arrays.asList(acks), deltas));
+    }
+
+    private AnnotationSyncResponse.Ack toAck(String key, AnnotationBatchResultDTO.ItemResult result) {
+        if (result.isSuccess()) {
+            return new AnnotationSyncResponse.Ack(key, AnnotationSyncResponse.Status.APPLIED, null);
+        }
+        if (AnnotationService.ALREADY_ANNOTATED.equals(result.getMessage())) {
+            return new AnnotationSyncResponse.Ack(key, AnnotationSyncResponse.Status.DUPLICATE, null);
+        }
+        return new AnnotationSyncResponse.Ack(key, AnnotationSyncResponse.Status.REJECTED, result.getMessage());
+    }
+
+    private static String storeKey(Long annotatorId, String key) {
+        return annotatorId + ":" + key;
+    }
+}
@@ -1,11 +1,16 @@
 package com.hicham.annotationplatformproject1.service;
 
+import com.hicham.annotationplatformproject1.config.CacheNames;
 import com.hicham.annotationplatformproject1.dto.AnnotatorRequest;
 import com.hicham.annotationplatformproject1.dto.AnnotatorResponse;
 import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.event.AnnotatorUpdatedEvent;
 import com.hicham.annotationplatformproject1.model.Utilisateur;
 import com.hicham.annotationplatformproject1.repository.UtilisateurRepository;
+import com.hicham.annotationplatformproject1.security.CustomUserDetailsService;
 import com.hicham.annotationplatformproject1.security.UtilisateurService;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -19,15 +24,22 @@ public class AnnotatorService {
     private final ActivityLogService activityLogService;
     private final PasswordEncoder passwordEncoder; // Injected PasswordEncoder
     private final UtilisateurService utilisateurService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CustomUserDetailsService userDetailsService;
     public AnnotatorService(UtilisateurRepository utilisateurRepository,
                             ActivityLogService activityLogService,
-                            PasswordEncoder passwordEncoder, UtilisateurService utilisateurService) {
+                            PasswordEncoder passwordEncoder, UtilisateurService utilisateurService,
+                            ApplicationEventPublisher eventPublisher,
+                            CustomUserDetailsService userDetailsService) {
         this.utilisateurRepository = utilisateurRepository;
         this.activityLogService = activityLogService;
         this.passwordEncoder = passwordEncoder;
         this.utilisateurService = utilisateurService;
+        this.eventPublisher = eventPublisher;
+        this.userDetailsService = userDetailsService;
     }
 
+    @Cacheable(cacheNames = CacheNames.ANNOTATORS, key = "'all'", unless = "!#result.success")
     public ApiResponse<List<AnnotatorResponse>> getAllAnnotators() {
         try {
             List<Utilisateur> annotators = utilisateurRepository.findByRole(Utilisateur.Role.ANNOTATOR);
@@ -106,6 +118,7 @@ public class AnnotatorService {
             }
 
             // Update fields
+            String previousUsername = annotator.getUsername();
             annotator.setPrenom(request.getPrenom());
             annotator.setNom(request.getNom());
             annotator.setUsername(request.getUsername());
@@ -114,6 +127,8 @@ public class AnnotatorService {
             annotator.setActive(request.isActive());
 
             utilisateurRepository.save(annotator);
+            userDetailsService.evict(previousUsername);
+            publishUpdated(annotator);
 
             AnnotatorResponse response = mapToAnnotatorResponse(annotator);
             if (newPassword != null) {
@@ -146,6 +161,7 @@ public class AnnotatorService {
 
             annotator.setActive(false);
             utilisateurRepository.save(annotator);
+            publishUpdated(annotator);
 
             activityLogService.logActivity(
                     "ANNOTATOR_DELETED",
@@ -162,6 +178,16 @@ public class AnnotatorService {
         }
     }
 
+    private void publishUpdated(Utilisateur annotator) {
+        eventPublisher.publishEvent(new AnnotatorUpdatedEvent(
+                annotator.getId(),
+                annotator.getPrenom() + " " + annotator.getNom(),
+                annotator.getRole(),
+                annotator.isActive(),
+                annotator.getCreatedAt()
+        ));
+    }
+
     private AnnotatorResponse mapToAnnotatorResponse(Utilisateur utilisateur) {
         AnnotatorResponse response = new AnnotatorResponse();
         response.setId(utilisateur.getId());
@@ -0,0 +1,100 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.event.AnnotationSavedEvent;
+import com.hicham.annotationplatformproject1.event.TasksAssignedEvent;
+import com.hicham.annotationplatformproject1.event.TasksUnassignedEvent;
+import com.hicham.annotationplatformproject1.model.Tache;
+import com.hicham.annotationplatformproject1.repository.TacheRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory view of open (not TERMINEE) tasks per annotator, across all datasets.
+ * Loaded with one grouped query, then kept current from task and annotation events.
+ */
+@Component
+public class AnnotatorWorkloadTracker {
+
+    private final TacheRepository tacheRepository;
+    private volatile Map<Long, LongAdder> openTasks;
+
+    public AnnotatorWorkloadTracker(TacheRepository tacheRepository) {
+        this.tacheRepository = tacheRepository;
+    }
+
+    /**
+     * Returns the number of open tasks for each of the given annotators (0 when none).
+     */
+    public Map<Long, Long> getOpenTasks(Collection<Long> annotatorIds) {
+        Map<Long, LongAdder> current = view();
+        Map<Long, Long> result = new HashMap<>(annotatorIds.size() * 2);
+        for (Long annotatorId : annotatorIds) {
+            LongAdder count = current.get(annotatorId);
+            result.put(annotatorId, count != null ? Math.max(count.sum(), 0L) : 0L);
+        }
+        return result;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksAssigned(TasksAssignedEvent event) {
+        event.getTasksByAnnotator().forEach(this::add);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksUnassigned(TasksUnassignedEvent event) {
+        event.getTasksByAnnotator().forEach((annotatorId, count) -> add(annotatorId, -count));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnnotationSaved(AnnotationSavedEvent event) {
+        if (event.isTaskCompleted()) {
+            add(event.getAnnotatorId(), -1L);
+        }
+    }
+
+    /**
+     * Rebuilds the view from the database to correct any drift (e.g. writes made outside this node).
+     */
+    @Scheduled(fixedDelay = 3600000, initialDelay = 3600000)
+    public void resync() {
+        openTasks = load();
+    }
+
+    private void add(Long annotatorId, long delta) {
+        if (annotatorId == null) return;
+        view().computeIfAbsent(annotatorId, id -> new LongAdder()).add(delta);
+    }
+
+    private Map<Long, LongAdder> view() {
+        Map<Long, LongAdder> current = openTasks;
+        if (current == null) {
+            synchronized (this) {
+                current = openTasks;
+                if (current == null) {
+                    current = load();
+                    openTasks = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Map<Long, LongAdder> load() {
+        List<Object[]> rows = tacheRepository.countOpenTasksGroupedByAnnotateur(Tache.StatutTache.TERMINEE);
+        Map<Long, LongAdder> loaded = new ConcurrentHashMap<>(Math.max(16, rows.size() * 2));
+        for (Object[] row : rows) {
+            LongAdder count = new LongAdder();
+            count.add((Long) row[1]);
+            loaded.put((Long) row[0], count);
+        }
+        return loaded;
+    }
+}
@@ -0,0 +1,101 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.config.CacheNames;
+import com.hicham.annotationplatformproject1.event.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evicts the shared caches when the data behind them changes, after the change commits.
+ * Datasets, assignments and users evict at once; annotations only move progress figures, so the
+ * datasets they touch are collected and evicted together every cache.progress-invalidation-interval-ms
+ * rather than once per label.
+ */
+@Service
+public class CacheInvalidationService {
+
+    private final CacheManager cacheManager;
+    private final Counter cacheErrors;
+    private final Set<Long> progressChanged = ConcurrentHashMap.newKeySet();
+
+    public CacheInvalidationService(CacheManager cacheManager, MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.cacheErrors = meterRegistry.counter("cache.errors");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDatasetCreated(DatasetCreatedEvent event) {
+        clear(CacheNames.DATASETS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksAssigned(TasksAssignedEvent event) {
+        datasetChanged(event.getDatasetId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksUnassigned(TasksUnassignedEvent event) {
+        datasetChanged(event.getDatasetId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnnotationSaved(AnnotationSavedEvent event) {
+        progressChanged.add(event.getDatasetId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserCreated(UserCreatedEvent event) {
+        clear(CacheNames.ANNOTATORS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnnotatorUpdated(AnnotatorUpdatedEvent event) {
+        clear(CacheNames.ANNOTATORS);
+    }
+
+    @Scheduled(fixedDelayString = "${cache.progress-invalidation-interval-ms:2000}")
+    public void evictChangedProgress() {
+        if (progressChanged.isEmpty()) return;
+
+        for (Long datasetId : progressChanged) {
+            if (progressChanged.remove(datasetId)) {
+                evict(CacheNames.DATASET_DETAILS, datasetId);
+            }
+        }
+        clear(CacheNames.DATASETS);
+    }
+
+    private void datasetChanged(Long datasetId) {
+        evict(CacheNames.DATASET_DETAILS, datasetId);
+        clear(CacheNames.DATASETS);
+    }
+
+    // Failures only leave an entry to expire with its TTL; they must not fail the write that caused them
+    private void evict(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) return;
+        try {
+            cache.evict(key);
+        } catch (RuntimeException e) {
+            cacheErrors.increment();
+        }
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) return;
+        try {
+            cache.clear();
+        } catch (RuntimeException e) {
+            cacheErrors.increment();
+        }
+    }
+}
@@ -14,11 +14,14 @@ public class ClassPersistanteService {
 
     private final ClassePersistanteRepository classePersistanteRepository;
     private final ActivityLogService activityLogService;
+    private final LabelSetCache labelSetCache;
 
     public ClassPersistanteService(ClassePersistanteRepository classePersistanteRepository,
-                                   ActivityLogService activityLogService) {
+                                   ActivityLogService activityLogService,
+                                   LabelSetCache labelSetCache) {
         this.classePersistanteRepository = classePersistanteRepository;
         this.activityLogService = activityLogService;
+        this.labelSetCache = labelSetCache;
     }
 
     public List<ClassePersistante> createClasses(String classNames, Dataset dataset) {
@@ -34,6 +37,7 @@ public class ClassPersistanteService {
                 }
             }
             classePersistanteRepository.saveAll(classes);
+            labelSetCache.invalidate(dataset.getId());
 
             activityLogService.logActivity(
                     "CLASSES_CREATED",
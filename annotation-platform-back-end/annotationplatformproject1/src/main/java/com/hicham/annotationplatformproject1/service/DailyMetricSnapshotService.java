@@ -0,0 +1,165 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.dto.DailyMetricsDTO;
+import com.hicham.annotationplatformproject1.model.DailyMetricSnapshot;
+import com.hicham.annotationplatformproject1.model.Tache;
+import com.hicham.annotationplatformproject1.model.Utilisateur;
+import com.hicham.annotationplatformproject1.repository.DailyMetricSnapshotRepository;
+import com.hicham.annotationplatformproject1.repository.DatasetRepository;
+import com.hicham.annotationplatformproject1.repository.TacheRepository;
+import com.hicham.annotationplatformproject1.repository.UtilisateurRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Keeps one row of key metrics per day, overwritten on a schedule (and on startup) and written a last
+ * time at 23:59:59, so that a day's row holds the figures as they stood at the end of that day. Day-over-day comparisons read
+ * the previous row instead of recounting history, and the rows form the metrics history.
+ */
+@Service
+public class DailyMetricSnapshotService {
+
+    private static final long MAX_HISTORY_DAYS = 3660;
+    private static final long END_OF_DAY_LAG_SECONDS = 60; // A late end-of-day run still writes the day it was due for
+
+    private record PreviousDay(LocalDate today, DailyMetricSnapshot snapshot) {
+    }
+
+    private final DailyMetricSnapshotRepository dailyMetricSnapshotRepository;
+    private final StatisticsEngine statisticsEngine;
+    private final DatasetRepository datasetRepository;
+    private final UtilisateurRepository utilisateurRepository;
+    private final TacheRepository tacheRepository;
+    private final AnnotationRollupService annotationRollupService;
+    private final ActivityLogService activityLogService;
+
+    private volatile PreviousDay previousDay; // Looked up once per day
+
+    public DailyMetricSnapshotService(DailyMetricSnapshotRepository dailyMetricSnapshotRepository,
+                                      StatisticsEngine statisticsEngine,
+                                      DatasetRepository datasetRepository,
+                                      UtilisateurRepository utilisateurRepository,
+                                      TacheRepository tacheRepository,
+                                      AnnotationRollupService annotationRollupService,
+                                      ActivityLogService activityLogService) {
+        this.dailyMetricSnapshotRepository = dailyMetricSnapshotRepository;
+        this.statisticsEngine = statisticsEngine;
+        this.datasetRepository = datasetRepository;
+        this.utilisateurRepository = utilisateurRepository;
+        this.tacheRepository = tacheRepository;
+        this.annotationRollupService = annotationRollupService;
+        this.activityLogService = activityLogService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void snapshotOnStartup() {
+        takeSnapshot();
+    }
+
+    @Scheduled(cron = "${metrics.snapshot.cron:0 */15 * * * *}")
+    public void takeSnapshot() {
+        takeSnapshot(LocalDate.now());
+    }
+
+    /**
+     * Closes the day with its final figures, the periodic snapshots stopping short of midnight.
+     */
+    @Scheduled(cron = "${metrics.snapshot.end-of-day-cron:59 59 23 * * *}")
+    public void takeEndOfDaySnapshot() {
+        takeSnapshot(LocalDateTime.now().minusSeconds(END_OF_DAY_LAG_SECONDS).toLocalDate());
+    }
+
+    /**
+     * Writes a day's row from the statistics engine when it is loaded, from four counts otherwise.
+     * Instances taking the same snapshot overwrite each other with equivalent figures.
+     */
+    void takeSnapshot(LocalDate day) {
+        try {
+            DailyMetricSnapshot snapshot = new DailyMetricSnapshot();
+            snapshot.setSnapshotDate(day);
+            if (statisticsEngine.isReady()) {
+                StatisticsEngine.Figures figures = statisticsEngine.getFigures();
+                snapshot.setTotalDatasets(figures.totalDatasets());
+                snapshot.setActiveAnnotators(figures.activeAnnotators());
+                snapshot.setTotalTasks(figures.totalTasks());
+                snapshot.setCompletedTasks(figures.completedTasks());
+            } else {
+                snapshot.setTotalDatasets(datasetRepository.count());
+                snapshot.setActiveAnnotators(utilisateurRepository.countByRoleAndActive(Utilisateur.Role.ANNOTATOR, true));
+                snapshot.setTotalTasks(tacheRepository.count());
+                snapshot.setCompletedTasks(tacheRepository.countByStatut(Tache.StatutTache.TERMINEE));
+            }
+            snapshot.setTakenAt(LocalDateTime.now());
+            dailyMetricSnapshotRepository.save(snapshot);
+            if (day.isBefore(LocalDate.now())) {
+                previousDay = null; // Closed after midnight: the baseline changed
+            }
+        } catch (Exception e) {
+            activityLogService.logActivity(
+                    "METRIC_SNAPSHOT_ERROR",
+                    "Failed to take the daily metric snapshot: " + e.getMessage()
+            );
+        }
+    }
+
+    /**
+     * The latest snapshot of a day before today, the baseline of day-over-day changes.
+     *
+     * @return Empty until a day has been snapshotted.
+     */
+    public Optional<DailyMetricSnapshot> getPreviousDay() {
+        LocalDate today = LocalDate.now();
+        PreviousDay cached = previousDay;
+        if (cached == null || !cached.today().equals(today)) {
+            cached = new PreviousDay(today,
+                    dailyMetricSnapshotRepository.findFirstBySnapshotDateBeforeOrderBySnapshotDateDesc(today).orElse(null));
+            previousDay = cached;
+        }
+        return Optional.ofNullable(cached.snapshot());
+    }
+
+    /**
+     * Retrieves the daily metrics between two days (inclusive). Days without a snapshot are omitted,
+     * their figures being unknown; annotation counts come from the daily rollups.
+     *
+     * @return ApiResponse with one entry per snapshotted day, in chronological order.
+     */
+    public ApiResponse<List<DailyMetricsDTO>> getHistory(LocalDate from, LocalDate to) {
+        try {
+            if (to.isBefore(from)) {
+                return ApiResponse.error("The end date must not be before the start date");
+            }
+            if (ChronoUnit.DAYS.between(from, to) >= MAX_HISTORY_DAYS) {
+                return ApiResponse.error("The range must not exceed " + MAX_HISTORY_DAYS + " days");
+            }
+
+            Map<LocalDate, Long> annotationsByDay = annotationRollupService.countByDay(from, to);
+            List<DailyMetricsDTO> history = dailyMetricSnapshotRepository.findBySnapshotDateBetweenOrderBySnapshotDate(from, to)
+                    .stream()
+                    .map(snapshot -> new DailyMetricsDTO(
+                            snapshot.getSnapshotDate().toString(),
+                            snapshot.getTotalDatasets(),
+                            snapshot.getActiveAnnotators(),
+                            snapshot.getTotalTasks(),
+                            snapshot.getCompletedTasks(),
+                            snapshot.getTotalTasks() > 0 ? snapshot.getCompletedTasks() * 100.0 / snapshot.getTotalTasks() : 0.0,
+                            annotationsByDay.getOrDefault(snapshot.getSnapshotDate(), 0L)
+                    ))
+                    .toList();
+            return ApiResponse.success("Metrics history retrieved successfully", history);
+        } catch (Exception e) {
+            activityLogService.logActivity("METRICS_HISTORY_ERROR", "Failed to retrieve metrics history: " + e.getMessage());
+            return ApiResponse.error("Failed to retrieve metrics history: " + e.getMessage());
+        }
+    }
+}
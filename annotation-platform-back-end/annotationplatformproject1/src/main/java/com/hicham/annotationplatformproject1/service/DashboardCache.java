@@ -0,0 +1,162 @@
+package com.hicham.annotationplatformproject1.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Stale-while-revalidate cache of dashboard data. A value younger than the soft TTL is served as is;
+ * an older one is still served at once while a background thread recomputes it, until the hard TTL,
+ * after which the caller recomputes it. A scheduled pre-warmer refreshes the entries read recently
+ * before they go soft-stale, so dashboard reads normally never wait for a computation. Failed
+ * computations are not cached: the previous value stays until its hard TTL.
+ * Reads are counted as dashboard.cache.requests with result fresh, stale or miss. When disabled,
+ * every read computes its value and nothing is pre-warmed.
+ */
+@Component
+public class DashboardCache {
+
+    private record Entry(Object value, long computedAt, Supplier<?> loader) {
+    }
+
+    private final boolean enabled;
+    private final Duration softTtl;
+    private final Duration hardTtl;
+    private final Duration idleTimeout;
+    private final long prewarmIntervalMs;
+    private final ActivityLogService activityLogService;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Long> lastReads = new ConcurrentHashMap<>();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Counter fresh;
+    private final Counter stale;
+    private final Counter miss;
+    private final Counter refreshErrors;
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dashboard-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public DashboardCache(@Value("${dashboard.cache.enabled:true}") boolean enabled,
+                          @Value("${dashboard.cache.soft-ttl:5s}") Duration softTtl,
+                          @Value("${dashboard.cache.hard-ttl:60s}") Duration hardTtl,
+                          @Value("${dashboard.cache.idle-timeout:10m}") Duration idleTimeout,
+                          @Value("${dashboard.cache.prewarm-interval-ms:2000}") long prewarmIntervalMs,
+                          ActivityLogService activityLogService,
+                          MeterRegistry meterRegistry) {
+        this(enabled, softTtl, hardTtl, idleTimeout, prewarmIntervalMs, activityLogService, meterRegistry,
+                Clock.systemUTC());
+    }
+
+    DashboardCache(boolean enabled, Duration softTtl, Duration hardTtl, Duration idleTimeout, long prewarmIntervalMs,
+                   ActivityLogService activityLogService, MeterRegistry meterRegistry, Clock clock) {
+        this.enabled = enabled;
+        this.softTtl = softTtl;
+        this.hardTtl = hardTtl;
+        this.idleTimeout = idleTimeout;
+        this.prewarmIntervalMs = prewarmIntervalMs;
+        this.activityLogService = activityLogService;
+        this.clock = clock;
+        this.fresh = meterRegistry.counter("dashboard.cache.requests", "result", "fresh");
+        this.stale = meterRegistry.counter("dashboard.cache.requests", "result", "stale");
+        this.miss = meterRegistry.counter("dashboard.cache.requests", "result", "miss");
+        this.refreshErrors = meterRegistry.counter("dashboard.cache.refresh.errors");
+    }
+
+    /**
+     * Returns the value of a key, computing it with the loader when there is none or it is past its
+     * hard TTL. The loader is kept to refresh the entry in the background.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, Supplier<T> loader) {
+        if (!enabled) return loader.get();
+        long now = clock.millis();
+        lastReads.put(key, now);
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            long age = now - entry.computedAt();
+            if (age < softTtl.toMillis()) {
+                fresh.increment();
+                return (T) entry.value();
+            }
+            if (age < hardTtl.toMillis()) {
+                stale.increment();
+                refreshAsync(key, entry.loader());
+                return (T) entry.value();
+            }
+        }
+        miss.increment();
+        return (T) load(key, loader);
+    }
+
+    /**
+     * Refreshes the entries read within the idle timeout that would go soft-stale before the next run,
+     * and drops the others.
+     */
+    @Scheduled(fixedDelayString = "${dashboard.cache.prewarm-interval-ms:2000}")
+    public void prewarm() {
+        if (!enabled) return;
+        long now = clock.millis();
+        for (Map.Entry<String, Entry> cached : entries.entrySet()) {
+            String key = cached.getKey();
+            Long lastRead = lastReads.get(key);
+            if (lastRead == null || now - lastRead > idleTimeout.toMillis()) {
+                entries.remove(key);
+                lastReads.remove(key);
+                continue;
+            }
+            long age = now - cached.getValue().computedAt();
+            if (age + prewarmIntervalMs >= softTtl.toMillis()) {
+                refreshAsync(key, cached.getValue().loader());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    private Object load(String key, Supplier<?> loader) {
+        Object value = loader.get();
+        entries.put(key, new Entry(value, clock.millis(), loader));
+        return value;
+    }
+
+    // At most one refresh per key is queued or running
+    private void refreshAsync(String key, Supplier<?> loader) {
+        if (!refreshing.add(key)) return;
+        try {
+            refresher.execute(() -> {
+                try {
+                    load(key, loader);
+                } catch (RuntimeException e) {
+                    refreshErrors.increment();
+                    activityLogService.logActivity("DASHBOARD_REFRESH_ERROR",
+                            "Failed to refresh dashboard data " + key + ": " + e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key); // Shutting down
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package com.hicham.annotationplatformproject1.service;
 
+import com.hicham.annotationplatformproject1.config.CacheNames;
 import com.hicham.annotationplatformproject1.dto.ApiResponse;
 import com.hicham.annotationplatformproject1.dto.DatasetDTO;
 import com.hicham.annotationplatformproject1.dto.DatasetDetailsDTO;
 import com.hicham.annotationplatformproject1.dto.DatasetsResponseDTO;
+import com.hicham.annotationplatformproject1.dto.LengthHistogramDTO;
+import com.hicham.annotationplatformproject1.event.DatasetCreatedEvent;
+import com.hicham.annotationplatformproject1.exception.ServiceException;
 import com.hicham.annotationplatformproject1.model.*;
 import com.hicham.annotationplatformproject1.repository.*;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.BufferedReader;
@@ -26,19 +35,40 @@ public class DatasetService {
     private final ActivityLogService activityLogService;
     private final TacheRepository tacheRepository;
     private final AnnotationRepository annotationRepository;
+    private final TextStatisticsService textStatisticsService;
+    private final LabelSetCache labelSetCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StatisticsEngine statisticsEngine;
+    private final ValidationService validationService;
+    private final RequestCoalescer requestCoalescer;
+    private final TransactionTemplate transactionTemplate;
 
     public DatasetService(DatasetRepository datasetRepository,
                           CoupeTexteRepository coupeTexteRepository,
                           ClassPersistanteService classPersistanteService,
                           ActivityLogService activityLogService,
                           TacheRepository tacheRepository,
-                          AnnotationRepository annotationRepository) {
+                          AnnotationRepository annotationRepository,
+                          TextStatisticsService textStatisticsService,
+                          LabelSetCache labelSetCache,
+                          ApplicationEventPublisher eventPublisher,
+                          StatisticsEngine statisticsEngine,
+                          ValidationService validationService,
+                          RequestCoalescer requestCoalescer,
+                          PlatformTransactionManager transactionManager) {
         this.datasetRepository = datasetRepository;
         this.coupeTexteRepository = coupeTexteRepository;
         this.classPersistanteService = classPersistanteService;
         this.activityLogService = activityLogService;
         this.tacheRepository = tacheRepository;
         this.annotationRepository = annotationRepository;
+        this.textStatisticsService = textStatisticsService;
+        this.labelSetCache = labelSetCache;
+        this.eventPublisher = eventPublisher;
+        this.statisticsEngine = statisticsEngine;
+        this.validationService = validationService;
+        this.requestCoalescer = requestCoalescer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public ApiResponse<DatasetDTO> createDataset(String name, String description,
@@ -57,6 +87,7 @@ public class DatasetService {
             Dataset savedDataset = datasetRepository.save(dataset);
 
             List<CoupeTexte> textPairs = processFile(file, savedDataset);
+            textStatisticsService.computeStatistics(textPairs);
             coupeTexteRepository.saveAll(textPairs);
 
             List<ClassePersistante> persistedClasses =
@@ -64,6 +95,8 @@ public class DatasetService {
             savedDataset.setClasses(persistedClasses);
 
             DatasetDTO datasetDTO = convertToDTO(savedDataset);
+            eventPublisher.publishEvent(new DatasetCreatedEvent(
+                    savedDataset.getId(), name, textPairs.size(), persistedClasses.size()));
 
             activityLogService.logActivity(
                     "DATASET_CREATED",
@@ -112,7 +145,12 @@ public class DatasetService {
         return textPairs;
     }
 
+    @Cacheable(cacheNames = CacheNames.DATASETS, key = "#page + ':' + #size", unless = "!#result.success")
     public ApiResponse<DatasetsResponseDTO> getAllDatasets(int page, int size) {
+        return requestCoalescer.execute("datasets", () -> loadDatasets(page, size), page, size);
+    }
+
+    private ApiResponse<DatasetsResponseDTO> loadDatasets(int page, int size) {
         try {
             Pageable pageable = PageRequest.of(page, size);
             Page<Dataset> datasetPage = datasetRepository.findAll(pageable);
@@ -176,50 +214,58 @@ public class DatasetService {
     }
 
     public ApiResponse<DatasetDTO> getDatasetById(Long id) {
-        return datasetRepository.findById(id)
-                .map(dataset -> {
-                    DatasetDTO datasetDTO = convertToDTO(dataset);
-                    activityLogService.logActivity(
-                            "DATASET_RETRIEVED",
-                            "Retrieved dataset ID: " + id + ", Name: " + dataset.getName()
-                    );
-                    return ApiResponse.success(
-                            "Dataset retrieved successfully",
-                            datasetDTO);
-                })
-                .orElseGet(() -> {
-                    activityLogService.logActivity(
-                            "DATASET_FETCH_ERROR",
-                            "Failed to find dataset with ID: " + id
-                    );
-                    return ApiResponse.error("Dataset not found with ID: " + id);
-                });
+        try {
+            ValidationService.DatasetHeader dataset = validationService.validateDatasetHeader(id);
+            DatasetDTO datasetDTO = convertToDTO(dataset.id(), dataset.name(), dataset.description());
+            activityLogService.logActivity(
+                    "DATASET_RETRIEVED",
+                    "Retrieved dataset ID: " + id + ", Name: " + dataset.name()
+            );
+            return ApiResponse.success(
+                    "Dataset retrieved successfully",
+                    datasetDTO);
+        } catch (ServiceException e) {
+            activityLogService.logActivity(
+                    "DATASET_FETCH_ERROR",
+                    "Failed to find dataset with ID: " + id
+            );
+            return ApiResponse.error("Dataset not found with ID: " + id);
+        }
     }
 
     private DatasetDTO convertToDTO(Dataset dataset) {
-        List<String> classNames = dataset.getClasses()
+        return convertToDTO(dataset.getId(), dataset.getName(), dataset.getDescription());
+    }
+
+    private DatasetDTO convertToDTO(Long id, String name, String description) {
+        List<String> classNames = labelSetCache.getLabelSet(id)
                 .stream()
-                .map(ClassePersistante::getNomClasse)
+                .map(LabelSetCache.Label::nomClasse)
                 .collect(Collectors.toList());
 
         // Calculate progress for the dataset
-        double progress = calculateDatasetProgress(dataset.getId());
+        double progress = calculateDatasetProgress(id);
 
         return new DatasetDTO(
-                dataset.getId(),
-                dataset.getName(),
-                dataset.getDescription(),
+                id,
+                name,
+                description,
                 classNames,
                 progress
         );
     }
 
+    @Cacheable(cacheNames = CacheNames.DATASET_DETAILS, key = "#id", unless = "!#result.success")
     public ApiResponse<DatasetDetailsDTO> getDatasetDetails(Long id) {
+        return requestCoalescer.execute("datasetDetails", () -> loadDatasetDetails(id), id);
+    }
+
+    private ApiResponse<DatasetDetailsDTO> loadDatasetDetails(Long id) {
         return datasetRepository.findById(id)
                 .map(dataset -> {
-                    List<String> classNames = dataset.getClasses()
+                    List<String> classNames = labelSetCache.getLabelSet(dataset.getId())
                             .stream()
-                            .map(ClassePersistante::getNomClasse)
+                            .map(LabelSetCache.Label::nomClasse)
                             .collect(Collectors.toList());
 
                     double progress = calculateDatasetProgress(dataset.getId());
@@ -266,15 +312,80 @@ public class DatasetService {
                 });
     }
 
+    /**
+     * Builds a length histogram of a dataset's text pairs for capacity planning. Only the computing caller
+     * opens a transaction, so callers waiting for the same histogram hold no connection.
+     *
+     * @param unit       TOKENS or CHARACTERS.
+     * @param bucketSize Width of each bucket in the chosen unit.
+     */
+    public ApiResponse<LengthHistogramDTO> getLengthHistogram(Long datasetId, String unit, int bucketSize) {
+        return requestCoalescer.execute("lengthHistogram",
+                () -> transactionTemplate.execute(status -> buildLengthHistogram(datasetId, unit, bucketSize)),
+                datasetId, unit, bucketSize);
+    }
+
+    private ApiResponse<LengthHistogramDTO> buildLengthHistogram(Long datasetId, String unit, int bucketSize) {
+        try {
+            if (!datasetRepository.existsById(datasetId)) {
+                return ApiResponse.error("Dataset not found with ID: " + datasetId);
+            }
+            if (bucketSize <= 0) {
+                return ApiResponse.error("Bucket size must be positive");
+            }
+            boolean characters = "CHARACTERS".equalsIgnoreCase(unit);
+
+            textStatisticsService.backfillStatistics(datasetId);
+            Object[] totals = coupeTexteRepository.sumTextStatisticsByDatasetId(datasetId).get(0);
+            List<Object[]> rows = characters
+                    ? coupeTexteRepository.charHistogramByDatasetId(datasetId, bucketSize)
+                    : coupeTexteRepository.tokenHistogramByDatasetId(datasetId, bucketSize);
+
+            List<LengthHistogramDTO.Bucket> buckets = rows.stream()
+                    .map(row -> {
+                        long bucket = ((Number) row[0]).longValue();
+                        return new LengthHistogramDTO.Bucket(
+                                bucket * bucketSize,
+                                (bucket + 1) * bucketSize,
+                                ((Number) row[1]).longValue());
+                    })
+                    .collect(Collectors.toList());
+
+            LengthHistogramDTO histogram = new LengthHistogramDTO(
+                    datasetId,
+                    characters ? "CHARACTERS" : "TOKENS",
+                    bucketSize,
+                    ((Number) totals[0]).longValue(),
+                    ((Number) totals[1]).longValue(),
+                    ((Number) totals[2]).longValue(),
+                    buckets
+            );
+
+            return ApiResponse.success("Length histogram retrieved successfully", histogram);
+        } catch (Exception e) {
+            activityLogService.logActivity(
+                    "DATASET_HISTOGRAM_ERROR",
+                    "Failed to build length histogram for dataset ID: " + datasetId + ": " + e.getMessage()
+            );
+            return ApiResponse.error("Failed to build length histogram: " + e.getMessage());
+        }
+    }
+
     private double calculateDatasetProgress(Long datasetId) {
-        long totalTasks = tacheRepository.countByDatasetId(datasetId);
-        long completedTasks = tacheRepository.countByDatasetIdAndStatut(datasetId, Tache.StatutTache.TERMINEE);
+        long[] counts = statisticsEngine.getDatasetTaskCounts(datasetId);
+        long totalTasks = counts != null ? counts[0] : tacheRepository.countByDatasetId(datasetId);
+        long completedTasks = counts != null ? counts[1]
+                : tacheRepository.countByDatasetIdAndStatut(datasetId, Tache.StatutTache.TERMINEE);
         return totalTasks > 0 ? (completedTasks >= totalTasks - 1 ? 100.0 : (completedTasks * 100.0 / totalTasks)) : 0.0;
     }
 
 
 
     public ApiResponse<byte[]> downloadDatasetAsCsv(Long datasetId) {
+        return requestCoalescer.execute("datasetCsv", () -> buildDatasetCsv(datasetId), datasetId);
+    }
+
+    private ApiResponse<byte[]> buildDatasetCsv(Long datasetId) {
         try {
             // Verify dataset exists
             Optional<Dataset> datasetOptional = datasetRepository.findById(datasetId);
@@ -0,0 +1,235 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.dto.LabelDistributionDTO;
+import com.hicham.annotationplatformproject1.event.AnnotationSavedEvent;
+import com.hicham.annotationplatformproject1.event.DatasetCreatedEvent;
+import com.hicham.annotationplatformproject1.repository.AnnotationRepository;
+import com.hicham.annotationplatformproject1.repository.ClassePersistanteRepository;
+import com.hicham.annotationplatformproject1.repository.StatisticsSnapshotRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Label counts per dataset and per annotator, one long[] per dataset (and per annotator in it) indexed
+ * by class position, the dataset's classes in creation order. Built once (from the last snapshot, or with
+ * one grouped query), then kept current by the annotation events published after each commit, so reading
+ * a distribution touches no table.
+ */
+@Component
+public class LabelDistributionEngine
+        extends SnapshottedEngine<Map<Long, LabelDistributionEngine.DatasetLabels>, LabelDistributionEngine.Snapshot> {
+
+    static final String SNAPSHOT_NAME = "label-distribution";
+
+    private final AnnotationRepository annotationRepository;
+    private final ClassePersistanteRepository classePersistanteRepository;
+    private final LabelSetCache labelSetCache;
+    private final ValidationService validationService;
+
+    public LabelDistributionEngine(AnnotationRepository annotationRepository,
+                                   ClassePersistanteRepository classePersistanteRepository,
+                                   StatisticsSnapshotRepository statisticsSnapshotRepository,
+                                   LabelSetCache labelSetCache,
+                                   ValidationService validationService,
+                                   ActivityLogService activityLogService,
+                                   ObjectMapper objectMapper,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${label-distribution.rebuild-interval-ms:900000}") long rebuildIntervalMs) {
+        super(SNAPSHOT_NAME, Snapshot.class, "LABEL_DISTRIBUTION", "label distribution", statisticsSnapshotRepository,
+                activityLogService, objectMapper, transactionManager, rebuildIntervalMs);
+        this.annotationRepository = annotationRepository;
+        this.classePersistanteRepository = classePersistanteRepository;
+        this.labelSetCache = labelSetCache;
+        this.validationService = validationService;
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${label-distribution.rebuild-interval-ms:900000}",
+            fixedDelayString = "${label-distribution.rebuild-interval-ms:900000}")
+    public void rebuild() {
+        super.rebuild();
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${label-distribution.snapshot-interval-ms:300000}",
+            fixedDelayString = "${label-distribution.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        super.snapshot();
+    }
+
+    /**
+     * Lists a new dataset's classes with zero counts, so its first read needs no query either.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDatasetCreated(DatasetCreatedEvent event) {
+        update(current -> datasetLabels(current, event.getDatasetId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnnotationSaved(AnnotationSavedEvent event) {
+        update(current -> {
+            DatasetLabels dataset = datasetLabels(current, event.getDatasetId());
+            synchronized (dataset) {
+                int position = dataset.position(event.getClasseChoisieId());
+                if (position < 0) {
+                    // Class created after the dataset's classes were listed
+                    String name = labelSetCache.getLabel(event.getClasseChoisieId())
+                            .map(LabelSetCache.Label::nomClasse)
+                            .orElse(null);
+                    position = dataset.addClass(event.getClasseChoisieId(), name);
+                }
+                dataset.add(event.getAnnotatorId(), position, 1);
+            }
+        });
+    }
+
+    /**
+     * Retrieves how a dataset's labels are distributed across its classes, overall and per annotator.
+     *
+     * @param datasetId The ID of the dataset.
+     * @return ApiResponse with one count per class (creation order), annotators by decreasing number of labels.
+     */
+    public ApiResponse<LabelDistributionDTO> getDistribution(Long datasetId) {
+        try {
+            Map<Long, DatasetLabels> current = state();
+            if (current == null) {
+                return ApiResponse.error("Label distribution is not loaded yet");
+            }
+            DatasetLabels dataset = current.get(datasetId);
+            if (dataset == null) {
+                // Created on another instance since the last rebuild, or unknown
+                validationService.validateDatasetHeader(datasetId);
+                dataset = datasetLabels(current, datasetId);
+            }
+            synchronized (dataset) {
+                return ApiResponse.success("Label distribution retrieved successfully", dataset.toDTO(datasetId));
+            }
+        } catch (Exception e) {
+            activityLogService.logActivity(
+                    "LABEL_DISTRIBUTION_ERROR",
+                    "Failed to retrieve label distribution for dataset " + datasetId + ": " + e.getMessage()
+            );
+            return ApiResponse.error("Failed to retrieve label distribution: " + e.getMessage());
+        }
+    }
+
+    private DatasetLabels datasetLabels(Map<Long, DatasetLabels> current, Long datasetId) {
+        return current.computeIfAbsent(datasetId, id -> {
+            DatasetLabels dataset = new DatasetLabels();
+            labelSetCache.getLabelSet(id).forEach(label -> dataset.addClass(label.id(), label.nomClasse()));
+            return dataset;
+        });
+    }
+
+    @Override
+    protected Map<Long, DatasetLabels> loadState() {
+        Map<Long, DatasetLabels> loaded = new ConcurrentHashMap<>();
+        for (Object[] row : classePersistanteRepository.findAllLabels()) {
+            loaded.computeIfAbsent((Long) row[2], id -> new DatasetLabels()).addClass((Long) row[0], (String) row[1]);
+        }
+        for (Object[] row : annotationRepository.countLabelsGroupedByDatasetAndAnnotateur()) {
+            DatasetLabels dataset = loaded.get((Long) row[0]);
+            int position = dataset == null ? -1 : dataset.position((Long) row[2]);
+            if (position < 0) continue; // Class of another dataset
+            dataset.add((Long) row[1], position, ((Number) row[3]).longValue());
+        }
+        return loaded;
+    }
+
+    @Override
+    protected Map<Long, DatasetLabels> restore(Snapshot snapshot) {
+        Map<Long, DatasetLabels> restored = new ConcurrentHashMap<>();
+        for (Snapshot.DatasetEntry entry : snapshot.datasets()) {
+            DatasetLabels dataset = new DatasetLabels();
+            for (int i = 0; i < entry.classIds().length; i++) {
+                dataset.addClass(entry.classIds()[i], entry.names()[i]);
+            }
+            System.arraycopy(entry.counts(), 0, dataset.counts, 0, entry.counts().length);
+            entry.byAnnotator().forEach((annotatorId, counts) -> dataset.byAnnotator.put(annotatorId, counts.clone()));
+            restored.put(entry.id(), dataset);
+        }
+        return restored;
+    }
+
+    @Override
+    protected Snapshot toSnapshot(Map<Long, DatasetLabels> current) {
+        List<Snapshot.DatasetEntry> datasets = new ArrayList<>(current.size());
+        current.forEach((datasetId, dataset) -> datasets.add(dataset.toEntry(datasetId)));
+        return new Snapshot(datasets);
+    }
+
+    // Guarded by its own monitor
+    static final class DatasetLabels {
+        long[] classIds = new long[0];
+        String[] names = new String[0];
+        long[] counts = new long[0];
+        final Map<Long, long[]> byAnnotator = new HashMap<>(); // Arrays may be shorter than counts (classes added since)
+
+        int position(long classId) {
+            for (int i = 0; i < classIds.length; i++) {
+                if (classIds[i] == classId) return i;
+            }
+            return -1;
+        }
+
+        int addClass(long classId, String name) {
+            int position = classIds.length;
+            classIds = Arrays.copyOf(classIds, position + 1);
+            names = Arrays.copyOf(names, position + 1);
+            counts = Arrays.copyOf(counts, position + 1);
+            classIds[position] = classId;
+            names[position] = name;
+            return position;
+        }
+
+        void add(long annotatorId, int position, long count) {
+            counts[position] += count;
+            long[] annotator = byAnnotator.get(annotatorId);
+            if (annotator == null || annotator.length <= position) {
+                annotator = annotator == null ? new long[classIds.length] : Arrays.copyOf(annotator, classIds.length);
+                byAnnotator.put(annotatorId, annotator);
+            }
+            annotator[position] += count;
+        }
+
+        LabelDistributionDTO toDTO(Long datasetId) {
+            long total = Arrays.stream(counts).sum();
+            List<LabelDistributionDTO.ClassCount> classes = new ArrayList<>(classIds.length);
+            for (int i = 0; i < classIds.length; i++) {
+                classes.add(new LabelDistributionDTO.ClassCount(classIds[i], names[i], counts[i],
+                        total > 0 ? counts[i] * 100.0 / total : 0.0));
+            }
+            List<LabelDistributionDTO.AnnotatorCounts> annotators = new ArrayList<>(byAnnotator.size());
+            byAnnotator.forEach((annotatorId, annotatorCounts) -> annotators.add(new LabelDistributionDTO.AnnotatorCounts(
+                    annotatorId,
+                    Arrays.stream(annotatorCounts).sum(),
+                    Arrays.copyOf(annotatorCounts, classIds.length)
+            )));
+            annotators.sort(Comparator.comparingLong(LabelDistributionDTO.AnnotatorCounts::getTotal).reversed()
+                    .thenComparing(LabelDistributionDTO.AnnotatorCounts::getAnnotatorId));
+            return new LabelDistributionDTO(datasetId, total, classes, annotators);
+        }
+
+        Snapshot.DatasetEntry toEntry(Long datasetId) {
+            synchronized (this) {
+                Map<Long, long[]> annotators = new HashMap<>();
+                byAnnotator.forEach((annotatorId, annotatorCounts) -> annotators.put(annotatorId, annotatorCounts.clone()));
+                return new Snapshot.DatasetEntry(datasetId, classIds.clone(), names.clone(), counts.clone(), annotators);
+            }
+        }
+    }
+
+    record Snapshot(List<DatasetEntry> datasets) {
+
+        record DatasetEntry(long id, long[] classIds, String[] names, long[] counts, Map<Long, long[]> byAnnotator) {
+        }
+    }
+}
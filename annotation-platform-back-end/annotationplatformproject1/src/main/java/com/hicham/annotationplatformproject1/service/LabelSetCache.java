@@ -0,0 +1,129 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hicham.annotationplatformproject1.config.CacheNames;
+import com.hicham.annotationplatformproject1.repository.ClassePersistanteRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cache of dataset label sets and of classes by ID.
+ * Classes never change once a dataset is created, so entries only need explicit invalidation
+ * when classes are (re)created; hit/miss counts are published as cache.* metrics.
+ * Label sets live in the labelSets cache, which with Redis keeps a local copy on every node
+ * (see TwoLevelCacheManager); classes by ID are kept in process.
+ */
+@Component
+public class LabelSetCache {
+
+    private static final int MAX_LABELS = 20_000;
+
+    /**
+     * Immutable view of a ClassePersistante.
+     */
+    public record Label(Long id, String nomClasse, Long datasetId) {
+    }
+
+    private final ClassePersistanteRepository classePersistanteRepository;
+    private final CacheManager cacheManager;
+    private final Counter cacheErrors;
+    private final Cache<Long, Label> labels;
+
+    public LabelSetCache(ClassePersistanteRepository classePersistanteRepository, CacheManager cacheManager,
+                         MeterRegistry meterRegistry) {
+        this.classePersistanteRepository = classePersistanteRepository;
+        this.cacheManager = cacheManager;
+        this.cacheErrors = meterRegistry.counter("cache.errors");
+        this.labels = Caffeine.newBuilder().maximumSize(MAX_LABELS).recordStats().build();
+        CaffeineCacheMetrics.monitor(meterRegistry, labels, "labels");
+    }
+
+    /**
+     * Returns the classes of a dataset, in creation order (empty when it has none).
+     */
+    public List<Label> getLabelSet(Long datasetId) {
+        List<Label> set = loadLabelSet(datasetId);
+        if (!set.isEmpty() && !labels.asMap().containsKey(set.get(0).id())) {
+            set.forEach(label -> labels.put(label.id(), label));
+        }
+        return set;
+    }
+
+    /**
+     * Returns a class by ID; unknown IDs are not cached.
+     */
+    public Optional<Label> getLabel(Long classId) {
+        return Optional.ofNullable(labels.get(classId, id ->
+                classePersistanteRepository.findLabelById(id).stream()
+                        .findFirst()
+                        .map(row -> new Label((Long) row[0], (String) row[1], (Long) row[2]))
+                        .orElse(null)));
+    }
+
+    /**
+     * Drops a dataset's label set and its classes, e.g. after its classes were created.
+     * Inside a transaction the entries are dropped again after commit, so a reader that loaded
+     * the pre-commit state in between cannot leave a stale set behind.
+     */
+    public void invalidate(Long datasetId) {
+        evict(datasetId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(datasetId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops the classes kept in process; label sets are cleared through their cache.
+     */
+    public void invalidateAll() {
+        labels.invalidateAll();
+    }
+
+    private List<Label> loadLabelSet(Long datasetId) {
+        org.springframework.cache.Cache shared = cacheManager.getCache(CacheNames.LABEL_SETS);
+        if (shared != null) {
+            try {
+                return Collections.unmodifiableList(shared.get(datasetId, () -> queryLabelSet(datasetId)));
+            } catch (RuntimeException e) {
+                cacheErrors.increment(); // Cache unavailable, read the database
+            }
+        }
+        return Collections.unmodifiableList(queryLabelSet(datasetId));
+    }
+
+    private ArrayList<Label> queryLabelSet(Long datasetId) {
+        ArrayList<Label> set = new ArrayList<>();
+        for (Object[] row : classePersistanteRepository.findLabelsByDatasetId(datasetId)) {
+            set.add(new Label((Long) row[0], (String) row[1], datasetId));
+        }
+        return set;
+    }
+
+    private void evict(Long datasetId) {
+        labels.asMap().values().removeIf(label -> datasetId.equals(label.datasetId()));
+        org.springframework.cache.Cache shared = cacheManager.getCache(CacheNames.LABEL_SETS);
+        if (shared != null) {
+            try {
+                shared.evict(datasetId);
+            } catch (RuntimeException e) {
+                cacheErrors.increment();
+            }
+        }
+    }
+}
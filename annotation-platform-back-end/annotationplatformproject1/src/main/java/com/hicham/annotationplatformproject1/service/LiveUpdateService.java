@@ -0,0 +1,296 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.event.AnnotationSavedEvent;
+import com.hicham.annotationplatformproject1.event.DatasetCreatedEvent;
+import com.hicham.annotationplatformproject1.event.TasksAssignedEvent;
+import com.hicham.annotationplatformproject1.event.TasksUnassignedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Server-Sent Events channels: one per annotator (task assignments and own progress) and a shared
+ * admin channel (datasets, assignments, statistics changes). Emitters are async requests, so an idle
+ * connection holds no servlet thread; events are written after the publishing transaction commits,
+ * never by the request that caused them. Each connection has its own event queue, drained by a small
+ * sender pool one connection at a time, so a client that stops reading only ties up the thread
+ * writing to it: once a send has been blocked longer than the send timeout, or its queue is full, the
+ * client is dropped and its EventSource reconnects.
+ */
+@Service
+public class LiveUpdateService {
+
+    private static final long EMITTER_TIMEOUT_MS = 30 * 60 * 1000L; // EventSource reconnects on its own
+    private static final int MAX_QUEUED_EVENTS = 100;
+
+    private final Map<Long, Set<Client>> annotatorClients = new ConcurrentHashMap<>();
+    private final Set<Client> adminClients = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean statisticsChanged = new AtomicBoolean();
+    private final long sendTimeoutNanos;
+    private final Supplier<SseEmitter> emitterFactory;
+    private final Counter dropped;
+    private final ThreadPoolExecutor sender;
+
+    /**
+     * A connection and the events not yet written to it. At most one drain runs per client, so events
+     * keep their order.
+     */
+    private final class Client {
+        final SseEmitter emitter;
+        Runnable unregister; // Set before the client is registered
+        final Queue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+        final AtomicBoolean closed = new AtomicBoolean();
+        volatile long sendStartedAt; // System.nanoTime() of the send in progress, 0 when idle
+        volatile Future<?> drain;
+
+        Client(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        boolean isStalled() {
+            long startedAt = sendStartedAt;
+            return startedAt != 0 && System.nanoTime() - startedAt > sendTimeoutNanos;
+        }
+    }
+
+    @Autowired
+    public LiveUpdateService(@Value("${live-updates.sender-threads:4}") int senderThreads,
+                             @Value("${live-updates.send-timeout-ms:10000}") long sendTimeoutMs,
+                             MeterRegistry meterRegistry) {
+        this(senderThreads, sendTimeoutMs, meterRegistry, () -> new SseEmitter(EMITTER_TIMEOUT_MS));
+    }
+
+    LiveUpdateService(int senderThreads, long sendTimeoutMs, MeterRegistry meterRegistry,
+                      Supplier<SseEmitter> emitterFactory) {
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        this.emitterFactory = emitterFactory;
+        AtomicInteger threadCount = new AtomicInteger();
+        // One drain task per client at most, so the queue is bounded by the number of connections
+        this.sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "live-updates-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.sender.allowCoreThreadTimeOut(true);
+        this.dropped = Counter.builder("live.connections.dropped")
+                .description("Server-Sent Events clients dropped for not reading their events")
+                .register(meterRegistry);
+        Gauge.builder("live.connections", this, LiveUpdateService::connectionCount)
+                .description("Open Server-Sent Events connections")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens the channel of an annotator.
+     */
+    public SseEmitter subscribeAnnotator(Long annotatorId) {
+        SseEmitter emitter = emitterFactory.get();
+        Client client = new Client(emitter);
+        client.unregister = () -> annotatorClients.computeIfPresent(annotatorId, (id, set) -> {
+            set.remove(client);
+            return set.isEmpty() ? null : set;
+        });
+        annotatorClients.computeIfAbsent(annotatorId, id -> ConcurrentHashMap.newKeySet()).add(client);
+        onClose(client);
+        deliver(client, "connected", Map.of("annotatorId", annotatorId));
+        return emitter;
+    }
+
+    /**
+     * Opens an admin channel.
+     */
+    public SseEmitter subscribeAdmin() {
+        SseEmitter emitter = emitterFactory.get();
+        Client client = new Client(emitter);
+        client.unregister = () -> adminClients.remove(client);
+        adminClients.add(client);
+        onClose(client);
+        deliver(client, "connected", Map.of());
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksAssigned(TasksAssignedEvent event) {
+        event.getTasksByAnnotator().forEach((annotatorId, count) -> toAnnotator(annotatorId, "tasks-assigned",
+                Map.of("datasetId", event.getDatasetId(), "count", count)));
+        toAdmins("tasks-assigned", Map.of("datasetId", event.getDatasetId(),
+                "count", event.getTasksByAnnotator().values().stream().mapToLong(Long::longValue).sum()));
+        statisticsChanged.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksUnassigned(TasksUnassignedEvent event) {
+        event.getTasksByAnnotator().forEach((annotatorId, count) -> toAnnotator(annotatorId, "tasks-unassigned",
+                Map.of("datasetId", event.getDatasetId(), "count", count)));
+        toAdmins("tasks-unassigned", Map.of("datasetId", event.getDatasetId(),
+                "count", event.getTasksByAnnotator().values().stream().mapToLong(Long::longValue).sum()));
+        statisticsChanged.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnnotationSaved(AnnotationSavedEvent event) {
+        toAnnotator(event.getAnnotatorId(), "progress", Map.of(
+                "datasetId", event.getDatasetId(),
+                "coupeTexteId", event.getCoupeTexteId(),
+                "taskCompleted", event.isTaskCompleted()));
+        statisticsChanged.set(true);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDatasetCreated(DatasetCreatedEvent event) {
+        toAdmins("dataset-created", Map.of(
+                "datasetId", event.getDatasetId(),
+                "name", event.getName(),
+                "pairCount", event.getPairCount(),
+                "classCount", event.getClassCount()));
+        statisticsChanged.set(true);
+    }
+
+    /**
+     * Coalesces statistics changes: admins get at most one "statistics-changed" event per interval,
+     * however many annotations were saved in between.
+     */
+    @Scheduled(fixedDelayString = "${live-updates.statistics-interval-ms:2000}")
+    public void publishStatisticsChanged() {
+        if (statisticsChanged.getAndSet(false)) {
+            toAdmins("statistics-changed", Map.of());
+        }
+    }
+
+    /**
+     * Keeps idle connections open through proxies, and drops clients that went away or stopped reading.
+     */
+    @Scheduled(fixedDelayString = "${live-updates.heartbeat-interval-ms:25000}")
+    public void heartbeat() {
+        annotatorClients.values().forEach(clients -> clients.forEach(this::ping));
+        adminClients.forEach(this::ping);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        annotatorClients.values().forEach(clients -> clients.forEach(client -> client.emitter.complete()));
+        adminClients.forEach(client -> client.emitter.complete());
+    }
+
+    private void toAnnotator(Long annotatorId, String name, Object data) {
+        Set<Client> clients = annotatorClients.get(annotatorId);
+        if (clients == null) return;
+        clients.forEach(client -> deliver(client, name, data));
+    }
+
+    private void toAdmins(String name, Object data) {
+        adminClients.forEach(client -> deliver(client, name, data));
+    }
+
+    private void deliver(Client client, String name, Object data) {
+        enqueue(client, SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+    }
+
+    private void ping(Client client) {
+        enqueue(client, SseEmitter.event().comment("ping"));
+    }
+
+    private void enqueue(Client client, SseEmitter.SseEventBuilder event) {
+        if (client.closed.get()) return;
+        if (client.isStalled() || client.queued.incrementAndGet() > MAX_QUEUED_EVENTS) {
+            drop(client);
+            return;
+        }
+        client.queue.add(event);
+        scheduleDrain(client);
+    }
+
+    private void scheduleDrain(Client client) {
+        if (!client.draining.compareAndSet(false, true)) return;
+        try {
+            client.drain = sender.submit(() -> drain(client));
+        } catch (RejectedExecutionException e) {
+            client.draining.set(false); // Shutting down
+        }
+    }
+
+    private void drain(Client client) {
+        try {
+            SseEmitter.SseEventBuilder event;
+            while (!client.closed.get() && (event = client.queue.poll()) != null) {
+                client.queued.decrementAndGet();
+                client.sendStartedAt = System.nanoTime();
+                client.emitter.send(event);
+                client.sendStartedAt = 0;
+            }
+        } catch (Exception e) {
+            client.sendStartedAt = 0;
+            if (client.closed.compareAndSet(false, true)) {
+                client.unregister.run();
+                client.emitter.completeWithError(e);
+            } else {
+                client.emitter.complete(); // Dropped while this send was blocked
+            }
+            return;
+        } finally {
+            client.draining.set(false);
+        }
+        if (client.closed.get()) {
+            client.emitter.complete();
+        } else if (!client.queue.isEmpty()) {
+            scheduleDrain(client); // Enqueued after the last poll
+        }
+    }
+
+    /**
+     * Unregisters a client that stopped reading. A blocked send is interrupted; the emitter is
+     * completed by its drain once the send returns, since completing waits for the send.
+     */
+    private void drop(Client client) {
+        if (!client.closed.compareAndSet(false, true)) return;
+        client.unregister.run();
+        client.queue.clear();
+        dropped.increment();
+        if (client.draining.get()) {
+            Future<?> drain = client.drain;
+            if (drain != null) drain.cancel(true);
+        } else {
+            client.emitter.complete();
+        }
+    }
+
+    private void onClose(Client client) {
+        Runnable close = () -> {
+            client.closed.set(true);
+            client.unregister.run();
+        };
+        client.emitter.onCompletion(close);
+        client.emitter.onTimeout(close);
+        client.emitter.onError(e -> close.run());
+    }
+
+    private double connectionCount() {
+        return adminClients.size() + annotatorClients.values().stream().mapToInt(Set::size).sum();
+    }
+}
@@ -0,0 +1,91 @@
+package com.hicham.annotationplatformproject1.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical reads share one computation: the first caller for an operation and its
+ * parameters computes the result on its own thread, callers arriving meanwhile wait for it and receive
+ * the same result (or exception), or fail once the wait timeout passes. Nothing is kept once the
+ * computation ends, so this is not a cache.
+ * Computations and coalesced calls are counted per operation as requests.computed and requests.coalesced;
+ * requests.in-flight gauges the computations running.
+ */
+@Component
+public class RequestCoalescer {
+
+    private record Key(String operation, List<Object> parameters) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final Duration waitTimeout;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter[]> counters = new ConcurrentHashMap<>();
+
+    public RequestCoalescer(MeterRegistry meterRegistry,
+                            @Value("${requests.coalescing.wait-timeout:30s}") Duration waitTimeout) {
+        this.meterRegistry = meterRegistry;
+        this.waitTimeout = waitTimeout;
+        meterRegistry.gaugeMapSize("requests.in-flight", List.of(), inFlight);
+    }
+
+    /**
+     * Runs the computation, or waits for the identical one already running, up to the wait timeout.
+     * Results are shared between callers and must not be modified.
+     *
+     * @param operation  Name of the read, e.g. "statistics".
+     * @param parameters Parameters the result depends on.
+     * @throws IllegalStateException When the running computation did not end within the wait timeout.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Supplier<T> computation, Object... parameters) {
+        Key key = new Key(operation, Arrays.asList(parameters));
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+        Counter[] operationCounters = counters.computeIfAbsent(operation, name -> new Counter[]{
+                meterRegistry.counter("requests.computed", "operation", name),
+                meterRegistry.counter("requests.coalesced", "operation", name)
+        });
+
+        if (running != null) {
+            operationCounters[1].increment();
+            try {
+                return (T) running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                if (e.getCause() instanceof Error error) throw error;
+                throw new IllegalStateException(e.getCause());
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("Timed out waiting for " + operation);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + operation);
+            }
+        }
+
+        operationCounters[0].increment();
+        try {
+            T result = computation.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+}
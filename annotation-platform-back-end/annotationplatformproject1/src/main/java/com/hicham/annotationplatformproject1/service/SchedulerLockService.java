@@ -0,0 +1,55 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.repository.SchedulerLockRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Database lease that keeps a scheduled job to a single node at a time.
+ */
+@Service
+public class SchedulerLockService {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+    private final String nodeId;
+
+    public SchedulerLockService(SchedulerLockRepository schedulerLockRepository) {
+        this.schedulerLockRepository = schedulerLockRepository;
+        this.nodeId = resolveHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Tries to take the named lease for the given duration.
+     *
+     * @return true if this node now holds the lease.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public boolean tryLock(String name, Duration leaseTime) {
+        LocalDateTime now = LocalDateTime.now();
+        schedulerLockRepository.createIfAbsent(name);
+        return schedulerLockRepository.tryAcquire(name, nodeId, now, now.plus(leaseTime)) == 1;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void unlock(String name) {
+        schedulerLockRepository.release(name, nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private static String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "node";
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hicham.annotationplatformproject1.model.StatisticsSnapshot;
+import com.hicham.annotationplatformproject1.repository.StatisticsSnapshotRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * In-memory state built once (from the last snapshot, or from the database), then kept current by the
+ * domain events published after each commit. The state is snapshotted as JSON periodically and on
+ * shutdown, and rebuilt from the database on a longer period to absorb writes made by other instances.
+ * Subclasses schedule {@link #rebuild()} and {@link #snapshot()} with their own intervals.
+ *
+ * @param <S> The state, updated concurrently by the event listeners.
+ * @param <P> Its snapshot, serialized as JSON.
+ */
+public abstract class SnapshottedEngine<S, P> {
+
+    private final String snapshotName;
+    private final Class<P> snapshotType;
+    private final String activityPrefix; // e.g. STATISTICS, for STATISTICS_REBUILD_ERROR
+    private final String description; // e.g. statistics, for "Failed to rebuild statistics"
+    private final StatisticsSnapshotRepository statisticsSnapshotRepository;
+    protected final ActivityLogService activityLogService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+    private final long rebuildIntervalMs;
+
+    private final Object swapLock = new Object();
+    private volatile S state; // null until loaded
+    private List<Consumer<S>> pending; // Updates made while a rebuild is running, replayed onto it; guarded by swapLock
+
+    protected SnapshottedEngine(String snapshotName, Class<P> snapshotType,
+                                String activityPrefix, String description,
+                                StatisticsSnapshotRepository statisticsSnapshotRepository,
+                                ActivityLogService activityLogService,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                long rebuildIntervalMs) {
+        this.snapshotName = snapshotName;
+        this.snapshotType = snapshotType;
+        this.activityPrefix = activityPrefix;
+        this.description = description;
+        this.statisticsSnapshotRepository = statisticsSnapshotRepository;
+        this.activityLogService = activityLogService;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.rebuildIntervalMs = rebuildIntervalMs;
+    }
+
+    /**
+     * Builds the state from the database. Runs in a read-only transaction.
+     */
+    protected abstract S loadState();
+
+    protected abstract S restore(P snapshot);
+
+    protected abstract P toSnapshot(S state);
+
+    /**
+     * When false the engine never loads, and callers fall back to the database.
+     */
+    protected boolean isEnabled() {
+        return true;
+    }
+
+    public boolean isReady() {
+        return state != null;
+    }
+
+    /**
+     * The current state, or null until loaded.
+     */
+    protected S state() {
+        return state;
+    }
+
+    /**
+     * Applies an event to the state. While a rebuild is running the update is also recorded and replayed
+     * onto the rebuilt state, so it is not lost on the swap.
+     */
+    protected void update(Consumer<S> change) {
+        S current;
+        synchronized (swapLock) {
+            current = state;
+            if (pending != null) pending.add(change);
+        }
+        if (current != null) change.accept(current);
+    }
+
+    /**
+     * Restores the last snapshot when it is younger than the rebuild interval, otherwise rebuilds.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!isEnabled()) return;
+        try {
+            Optional<StatisticsSnapshot> snapshot = statisticsSnapshotRepository.findById(snapshotName)
+                    .filter(s -> s.getTakenAt() != null
+                            && s.getTakenAt().isAfter(LocalDateTime.now().minus(Duration.ofMillis(rebuildIntervalMs))));
+            if (snapshot.isPresent()) {
+                S restored = restore(objectMapper.readValue(snapshot.get().getPayload(), snapshotType));
+                synchronized (swapLock) {
+                    state = restored;
+                }
+                return;
+            }
+        } catch (Exception e) {
+            activityLogService.logActivity(
+                    activityPrefix + "_SNAPSHOT_ERROR",
+                    "Failed to restore " + description + " snapshot, rebuilding: " + e.getMessage()
+            );
+        }
+        rebuild();
+    }
+
+    /**
+     * Rebuilds the state from the database in one read-only transaction and swaps it. Updates made from
+     * the start of the rebuild are replayed onto the new state; one committed just as the rebuild starts
+     * may be counted twice until the next rebuild, where dropping them all lost a whole rebuild's worth.
+     */
+    public void rebuild() {
+        if (!isEnabled()) return;
+        synchronized (swapLock) {
+            pending = new ArrayList<>();
+        }
+        try {
+            S loaded = readOnlyTransaction.execute(status -> loadState());
+            synchronized (swapLock) {
+                pending.forEach(change -> change.accept(loaded));
+                state = loaded;
+            }
+            afterRebuild();
+        } catch (Exception e) {
+            activityLogService.logActivity(
+                    activityPrefix + "_REBUILD_ERROR",
+                    "Failed to rebuild " + description + ": " + e.getMessage()
+            );
+        } finally {
+            synchronized (swapLock) {
+                pending = null;
+            }
+        }
+    }
+
+    protected void afterRebuild() {
+    }
+
+    public void snapshot() {
+        S current = state;
+        if (current == null) return;
+        try {
+            StatisticsSnapshot snapshot = new StatisticsSnapshot();
+            snapshot.setName(snapshotName);
+            snapshot.setPayload(objectMapper.writeValueAsString(toSnapshot(current)));
+            snapshot.setTakenAt(LocalDateTime.now());
+            statisticsSnapshotRepository.save(snapshot);
+        } catch (Exception e) {
+            activityLogService.logActivity(
+                    activityPrefix + "_SNAPSHOT_ERROR",
+                    "Failed to snapshot " + description + ": " + e.getMessage()
+            );
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+}
@@ -0,0 +1,348 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hicham.annotationplatformproject1.dto.StatisticsDTO;
+import com.hicham.annotationplatformproject1.event.*;
+import com.hicham.annotationplatformproject1.model.Tache;
+import com.hicham.annotationplatformproject1.model.Utilisateur;
+import com.hicham.annotationplatformproject1.repository.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory counters behind the admin dashboard. They are built once (from the last snapshot, or with a
+ * few grouped queries), then kept current by the domain events published after each commit, so reading
+ * the dashboard touches no table.
+ */
+@Component
+public class StatisticsEngine extends SnapshottedEngine<StatisticsEngine.State, StatisticsEngine.Snapshot> {
+
+    static final String SNAPSHOT_NAME = "dashboard";
+    private static final int TREND_DAYS = 7;
+
+    private final DatasetRepository datasetRepository;
+    private final UtilisateurRepository utilisateurRepository;
+    private final TacheRepository tacheRepository;
+    private final AnnotationRollupService annotationRollupService;
+    private final boolean enabled;
+
+    public StatisticsEngine(DatasetRepository datasetRepository,
+                            UtilisateurRepository utilisateurRepository,
+                            TacheRepository tacheRepository,
+                            AnnotationRollupService annotationRollupService,
+                            StatisticsSnapshotRepository statisticsSnapshotRepository,
+                            ActivityLogService activityLogService,
+                            ObjectMapper objectMapper,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${statistics.engine.rebuild-interval-ms:900000}") long rebuildIntervalMs,
+                            @Value("${statistics.engine.enabled:true}") boolean enabled) {
+        super(SNAPSHOT_NAME, Snapshot.class, "STATISTICS", "statistics", statisticsSnapshotRepository,
+                activityLogService, objectMapper, transactionManager, rebuildIntervalMs);
+        this.datasetRepository = datasetRepository;
+        this.utilisateurRepository = utilisateurRepository;
+        this.tacheRepository = tacheRepository;
+        this.annotationRollupService = annotationRollupService;
+        this.enabled = enabled;
+    }
+
+    /**
+     * When the engine is disabled it never loads and the dashboard is computed from the database.
+     */
+    @Override
+    protected boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${statistics.engine.rebuild-interval-ms:900000}",
+            fixedDelayString = "${statistics.engine.rebuild-interval-ms:900000}")
+    public void rebuild() {
+        super.rebuild();
+    }
+
+    @Override
+    protected void afterRebuild() {
+        activityLogService.reloadRecentActivities();
+    }
+
+    @Override
+    @Scheduled(initialDelayString = "${statistics.engine.snapshot-interval-ms:300000}",
+            fixedDelayString = "${statistics.engine.snapshot-interval-ms:300000}")
+    public void snapshot() {
+        super.snapshot();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDatasetCreated(DatasetCreatedEvent event) {
+        update(current -> current.dataset(event.getDatasetId()).name = event.getName());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksAssigned(TasksAssignedEvent event) {
+        update(current -> {
+            DatasetCounters dataset = current.dataset(event.getDatasetId());
+            event.getTasksByAnnotator().forEach((annotatorId, count) -> {
+                current.annotator(annotatorId).tasks.add(count);
+                dataset.tasks.add(count);
+                current.totalTasks.add(count);
+            });
+        });
+    }
+
+    /**
+     * Unassigned tasks stay in their dataset (pending, without annotator); only the annotators lose them.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTasksUnassigned(TasksUnassignedEvent event) {
+        update(current -> event.getTasksByAnnotator()
+                .forEach((annotatorId, count) -> current.annotator(annotatorId).tasks.add(-count)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnnotationSaved(AnnotationSavedEvent event) {
+        update(current -> {
+            current.annotationsByDay.computeIfAbsent(event.getAnnotatedAt().toLocalDate(), day -> new LongAdder()).increment();
+            if (event.isTaskCompleted()) {
+                current.dataset(event.getDatasetId()).completed.increment();
+                current.annotator(event.getAnnotatorId()).completed.increment();
+                current.completedTasks.increment();
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserCreated(UserCreatedEvent event) {
+        updateUser(event.getUserId(), event.getDisplayName(), event.getRole(), event.isActive(), event.getCreatedAt());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAnnotatorUpdated(AnnotatorUpdatedEvent event) {
+        updateUser(event.getUserId(), event.getDisplayName(), event.getRole(), event.isActive(), event.getCreatedAt());
+    }
+
+    /**
+     * Task counts of a dataset as {total, completed}, or null when the engine does not know it yet.
+     */
+    public long[] getDatasetTaskCounts(Long datasetId) {
+        State current = state();
+        DatasetCounters dataset = current == null ? null : current.datasets.get(datasetId);
+        return dataset == null ? null : new long[]{dataset.tasks.sum(), dataset.completed.sum()};
+    }
+
+    /**
+     * Current figures of the dashboard. Only valid once {@link #isReady()}.
+     */
+    public Figures getFigures() {
+        State current = state();
+        LocalDate today = LocalDate.now();
+
+        List<StatisticsDTO.DatasetProgress> progress = new ArrayList<>();
+        List<DatasetCounters> datasets = new ArrayList<>(current.datasets.values());
+        datasets.sort(Comparator.comparingLong(d -> d.id));
+        for (DatasetCounters dataset : datasets) {
+            if (dataset.name == null) continue; // Created on another instance, named at the next rebuild
+            long completed = dataset.completed.sum();
+            progress.add(new StatisticsDTO.DatasetProgress(dataset.name, (int) completed,
+                    (int) (dataset.tasks.sum() - completed)));
+        }
+
+        long activeAnnotators = 0;
+        List<AnnotatorCounters> annotators = new ArrayList<>();
+        for (AnnotatorCounters annotator : current.annotators.values()) {
+            if (!annotator.annotatorRole) continue;
+            annotators.add(annotator);
+            if (annotator.active) activeAnnotators++;
+        }
+        List<StatisticsDTO.TopAnnotator> topAnnotators = annotators.stream()
+                .sorted(Comparator.comparingInt(AnnotatorCounters::completion).reversed()
+                        .thenComparingLong(a -> a.id))
+                .limit(5)
+                .map(a -> new StatisticsDTO.TopAnnotator(a.name, a.completion()))
+                .toList();
+
+        Map<LocalDate, Long> annotationsByDay = new HashMap<>();
+        for (int i = 0; i <= TREND_DAYS; i++) {
+            LocalDate day = today.minusDays(i);
+            LongAdder count = current.annotationsByDay.get(day);
+            annotationsByDay.put(day, count == null ? 0L : count.sum());
+        }
+
+        return new Figures(
+                datasets.size(), activeAnnotators,
+                current.totalTasks.sum(), current.completedTasks.sum(),
+                progress, topAnnotators, annotationsByDay);
+    }
+
+    private void updateUser(Long userId, String displayName, Utilisateur.Role role, boolean active, LocalDateTime createdAt) {
+        update(current -> {
+            AnnotatorCounters annotator = current.annotator(userId);
+            annotator.name = displayName;
+            annotator.annotatorRole = role == Utilisateur.Role.ANNOTATOR;
+            annotator.active = active;
+            if (createdAt != null) annotator.createdAt = createdAt;
+        });
+    }
+
+    @Override
+    protected State loadState() {
+        State loaded = new State();
+        for (Object[] row : datasetRepository.findSummaries()) {
+            DatasetCounters dataset = loaded.dataset((Long) row[0]);
+            dataset.name = (String) row[1];
+            if (row[2] != null) dataset.createdAt = (LocalDateTime) row[2];
+        }
+        for (Object[] row : utilisateurRepository.findSummariesByRole(Utilisateur.Role.ANNOTATOR)) {
+            AnnotatorCounters annotator = loaded.annotator((Long) row[0]);
+            annotator.name = row[1] + " " + row[2];
+            annotator.annotatorRole = true;
+            annotator.active = (Boolean) row[3];
+            if (row[4] != null) annotator.createdAt = (LocalDateTime) row[4];
+        }
+        for (Object[] row : tacheRepository.countTasksGroupedByDataset(Tache.StatutTache.TERMINEE)) {
+            DatasetCounters dataset = loaded.dataset((Long) row[0]);
+            dataset.tasks.add(((Number) row[1]).longValue());
+            dataset.completed.add(((Number) row[2]).longValue());
+            loaded.totalTasks.add(((Number) row[1]).longValue());
+            loaded.completedTasks.add(((Number) row[2]).longValue());
+        }
+        for (Object[] row : tacheRepository.countTasksGroupedByAnnotateur(Tache.StatutTache.TERMINEE)) {
+            AnnotatorCounters annotator = loaded.annotator((Long) row[0]);
+            annotator.tasks.add(((Number) row[1]).longValue());
+            annotator.completed.add(((Number) row[2]).longValue());
+        }
+        annotationRollupService.countByDay(LocalDate.now().minusDays(TREND_DAYS), LocalDate.now())
+                .forEach((day, count) -> loaded.annotationsByDay.computeIfAbsent(day, d -> new LongAdder()).add(count));
+        return loaded;
+    }
+
+    @Override
+    protected State restore(Snapshot snapshot) {
+        return State.restore(snapshot);
+    }
+
+    @Override
+    protected Snapshot toSnapshot(State current) {
+        current.pruneDays(LocalDate.now().minusDays(TREND_DAYS));
+        return current.toSnapshot();
+    }
+
+    /**
+     * Raw dashboard numbers; day-over-day baselines come from the daily metric snapshots.
+     */
+    public record Figures(long totalDatasets, long activeAnnotators,
+                          long totalTasks, long completedTasks,
+                          List<StatisticsDTO.DatasetProgress> datasetsProgress,
+                          List<StatisticsDTO.TopAnnotator> topAnnotators,
+                          Map<LocalDate, Long> annotationsByDay) {
+    }
+
+    static final class State {
+        final Map<Long, DatasetCounters> datasets = new ConcurrentHashMap<>();
+        final Map<Long, AnnotatorCounters> annotators = new ConcurrentHashMap<>();
+        final Map<LocalDate, LongAdder> annotationsByDay = new ConcurrentHashMap<>();
+        final LongAdder totalTasks = new LongAdder();
+        final LongAdder completedTasks = new LongAdder();
+
+        DatasetCounters dataset(Long id) {
+            return datasets.computeIfAbsent(id, DatasetCounters::new);
+        }
+
+        AnnotatorCounters annotator(Long id) {
+            return annotators.computeIfAbsent(id, AnnotatorCounters::new);
+        }
+
+        void pruneDays(LocalDate oldest) {
+            annotationsByDay.keySet().removeIf(day -> day.isBefore(oldest));
+        }
+
+        Snapshot toSnapshot() {
+            Map<String, Long> days = new TreeMap<>();
+            annotationsByDay.forEach((day, count) -> days.put(day.toString(), count.sum()));
+            return new Snapshot(
+                    datasets.values().stream()
+                            .map(d -> new Snapshot.DatasetEntry(d.id, d.name, d.createdAt, d.tasks.sum(), d.completed.sum()))
+                            .toList(),
+                    annotators.values().stream()
+                            .map(a -> new Snapshot.AnnotatorEntry(a.id, a.name, a.annotatorRole, a.active, a.createdAt,
+                                    a.tasks.sum(), a.completed.sum()))
+                            .toList(),
+                    days, totalTasks.sum(), completedTasks.sum());
+        }
+
+        static State restore(Snapshot snapshot) {
+            State restored = new State();
+            for (Snapshot.DatasetEntry entry : snapshot.datasets()) {
+                DatasetCounters dataset = restored.dataset(entry.id());
+                dataset.name = entry.name();
+                dataset.createdAt = entry.createdAt();
+                dataset.tasks.add(entry.tasks());
+                dataset.completed.add(entry.completed());
+            }
+            for (Snapshot.AnnotatorEntry entry : snapshot.annotators()) {
+                AnnotatorCounters annotator = restored.annotator(entry.id());
+                annotator.name = entry.name();
+                annotator.annotatorRole = entry.annotatorRole();
+                annotator.active = entry.active();
+                annotator.createdAt = entry.createdAt();
+                annotator.tasks.add(entry.tasks());
+                annotator.completed.add(entry.completed());
+            }
+            snapshot.annotationsByDay().forEach((day, count) ->
+                    restored.annotationsByDay.computeIfAbsent(LocalDate.parse(day), d -> new LongAdder()).add(count));
+            restored.totalTasks.add(snapshot.totalTasks());
+            restored.completedTasks.add(snapshot.completedTasks());
+            return restored;
+        }
+    }
+
+    private static final class DatasetCounters {
+        final long id;
+        volatile String name;
+        volatile LocalDateTime createdAt = LocalDateTime.now();
+        final LongAdder tasks = new LongAdder();
+        final LongAdder completed = new LongAdder();
+
+        DatasetCounters(Long id) {
+            this.id = id;
+        }
+    }
+
+    private static final class AnnotatorCounters {
+        final long id;
+        volatile String name;
+        volatile boolean annotatorRole; // Only annotators are listed; others keep counting in case their role changes back
+        volatile boolean active;
+        volatile LocalDateTime createdAt = LocalDateTime.now();
+        final LongAdder tasks = new LongAdder();
+        final LongAdder completed = new LongAdder();
+
+        AnnotatorCounters(Long id) {
+            this.id = id;
+        }
+
+        int completion() {
+            long total = tasks.sum();
+            return total > 0 ? (int) (completed.sum() * 100 / total) : 0;
+        }
+    }
+
+    record Snapshot(List<DatasetEntry> datasets, List<AnnotatorEntry> annotators, Map<String, Long> annotationsByDay,
+                    long totalTasks, long completedTasks) {
+
+        record DatasetEntry(long id, String name, LocalDateTime createdAt, long tasks, long completed) {
+        }
+
+        record AnnotatorEntry(long id, String name, boolean annotatorRole, boolean active, LocalDateTime createdAt,
+                              long tasks, long completed) {
+        }
+    }
+}
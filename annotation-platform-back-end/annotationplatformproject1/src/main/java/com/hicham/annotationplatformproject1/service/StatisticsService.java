@@ -4,13 +4,13 @@ import com.hicham.annotationplatformproject1.dto.ApiResponse;
 import com.hicham.annotationplatformproject1.dto.StatisticsDTO;
 import com.hicham.annotationplatformproject1.model.*;
 import com.hicham.annotationplatformproject1.repository.*;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Service for calculating and retrieving statistical data, centralizing progress and metric calculations.
@@ -22,41 +22,49 @@ public class StatisticsService {
     private final UtilisateurRepository utilisateurRepository;
     private final AnnotationRepository annotationRepository;
     private final TacheRepository tacheRepository;
-    private final ActivityLogRepository activityLogRepository;
     private final ActivityLogService activityLogService;
     private final CoupeTexteRepository coupeTexteRepository;
+    private final StatisticsEngine statisticsEngine;
+    private final AnnotationRollupService annotationRollupService;
+    private final RequestCoalescer requestCoalescer;
+    private final DashboardCache dashboardCache;
+    private final DailyMetricSnapshotService dailyMetricSnapshotService;
 
     public StatisticsService(DatasetRepository datasetRepository,
                              UtilisateurRepository utilisateurRepository,
                              AnnotationRepository annotationRepository,
                              TacheRepository tacheRepository,
-                             ActivityLogRepository activityLogRepository,
                              ActivityLogService activityLogService,
-                             CoupeTexteRepository coupeTexteRepository) {
+                             CoupeTexteRepository coupeTexteRepository,
+                             StatisticsEngine statisticsEngine,
+                             AnnotationRollupService annotationRollupService,
+                             RequestCoalescer requestCoalescer,
+                             DashboardCache dashboardCache,
+                             DailyMetricSnapshotService dailyMetricSnapshotService) {
         this.datasetRepository = datasetRepository;
         this.utilisateurRepository = utilisateurRepository;
         this.annotationRepository = annotationRepository;
         this.tacheRepository = tacheRepository;
-        this.activityLogRepository = activityLogRepository;
         this.activityLogService = activityLogService;
         this.coupeTexteRepository = coupeTexteRepository;
+        this.statisticsEngine = statisticsEngine;
+        this.annotationRollupService = annotationRollupService;
+        this.requestCoalescer = requestCoalescer;
+        this.dashboardCache = dashboardCache;
+        this.dailyMetricSnapshotService = dailyMetricSnapshotService;
     }
 
     /**
-     * Retrieves comprehensive statistics for the platform.
+     * Retrieves comprehensive statistics for the platform, from the in-memory engine once it is loaded
+     * and from the database before that. Served stale-while-revalidate by the dashboard cache, and
+     * concurrent computations are shared.
      *
      * @return ApiResponse with StatisticsDTO containing all stats.
      */
     public ApiResponse<StatisticsDTO> getStatistics() {
         try {
-            StatisticsDTO stats = new StatisticsDTO(
-                    getStats(),
-                    getRecentActivities(),
-                    getDatasetsProgress(),
-                    getTopAnnotators(),
-                    getAnnotationTrend()
-            );
-            activityLogService.logActivity("STATISTICS_RETRIEVED", "Statistics data retrieved successfully");
+            StatisticsDTO stats = dashboardCache.get("statistics",
+                    () -> requestCoalescer.execute("statistics", this::computeStatistics));
             return ApiResponse.success("Statistics retrieved successfully", stats);
         } catch (Exception e) {
             activityLogService.logActivity("STATISTICS_ERROR", "Failed to retrieve statistics: " + e.getMessage());
@@ -64,6 +72,19 @@ public class StatisticsService {
         }
     }
 
+    private StatisticsDTO computeStatistics() {
+        StatisticsEngine.Figures figures = statisticsEngine.isReady()
+                ? statisticsEngine.getFigures()
+                : loadFigures();
+        return new StatisticsDTO(
+                getStats(figures, dailyMetricSnapshotService.getPreviousDay().orElse(null)),
+                getRecentActivities(),
+                figures.datasetsProgress(),
+                figures.topAnnotators(),
+                getAnnotationTrend(figures)
+        );
+    }
+
     /**
      * Calculates the progress percentage for a dataset.
      *
@@ -71,8 +92,10 @@ public class StatisticsService {
      * @return Progress as a percentage (0.0 to 100.0).
      */
     public double calculateDatasetProgress(Long datasetId) {
-        long totalTasks = tacheRepository.countByDatasetId(datasetId);
-        long completedTasks = tacheRepository.countByDatasetIdAndStatut(datasetId, Tache.StatutTache.TERMINEE);
+        long[] counts = statisticsEngine.getDatasetTaskCounts(datasetId);
+        long totalTasks = counts != null ? counts[0] : tacheRepository.countByDatasetId(datasetId);
+        long completedTasks = counts != null ? counts[1]
+                : tacheRepository.countByDatasetIdAndStatut(datasetId, Tache.StatutTache.TERMINEE);
         return totalTasks > 0 ? Math.min((completedTasks * 100.0 / totalTasks), 100.0) : 0.0;
     }
 
@@ -108,42 +131,74 @@ public class StatisticsService {
     }
 
     /**
-     * Retrieves general statistics (datasets, annotators, annotations, completion).
+     * Computes the dashboard figures from the database, used until the statistics engine is loaded.
      *
+     * @return Figures with the same content as {@link StatisticsEngine#getFigures()}.
+     */
+    private StatisticsEngine.Figures loadFigures() {
+        List<StatisticsDTO.DatasetProgress> datasetsProgress = datasetRepository.findTaskProgress(Tache.StatutTache.TERMINEE)
+                .stream()
+                .map(row -> new StatisticsDTO.DatasetProgress(
+                        (String) row[0], ((Number) row[1]).intValue(), ((Number) row[2]).intValue()))
+                .toList();
+
+        List<StatisticsDTO.TopAnnotator> topAnnotators = utilisateurRepository.findTopByCompletionRate(
+                        Utilisateur.Role.ANNOTATOR, Tache.StatutTache.TERMINEE, PageRequest.of(0, 5))
+                .stream()
+                .map(row -> {
+                    long totalTasks = ((Number) row[2]).longValue();
+                    long completedTasks = ((Number) row[3]).longValue();
+                    int completion = totalTasks > 0 ? (int) (completedTasks * 100 / totalTasks) : 0;
+                    return new StatisticsDTO.TopAnnotator(row[0] + " " + row[1], completion);
+                })
+                .toList();
+
+        Map<LocalDate, Long> annotationsByDay = annotationRollupService.countByDay(LocalDate.now().minusDays(7), LocalDate.now());
+
+        return new StatisticsEngine.Figures(
+                datasetRepository.count(),
+                utilisateurRepository.countByRoleAndActive(Utilisateur.Role.ANNOTATOR, true),
+                tacheRepository.count(),
+                tacheRepository.countByStatut(Tache.StatutTache.TERMINEE),
+                datasetsProgress,
+                topAnnotators,
+                annotationsByDay
+        );
+    }
+
+    /**
+     * Builds the general statistics (datasets, annotators, annotations, completion).
+     *
+     * @param figures     Current dashboard figures.
+     * @param previousDay Figures at the end of the previous snapshotted day, null when there is none (no change).
      * @return List of StatItem objects.
      */
-    private List<StatisticsDTO.StatItem> getStats() {
+    private List<StatisticsDTO.StatItem> getStats(StatisticsEngine.Figures figures, DailyMetricSnapshot previousDay) {
         List<StatisticsDTO.StatItem> stats = new ArrayList<>();
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime yesterday = now.minusDays(1);
+        long datasetsBefore = previousDay != null ? previousDay.getTotalDatasets() : figures.totalDatasets();
+        long activeAnnotatorsBefore = previousDay != null ? previousDay.getActiveAnnotators() : figures.activeAnnotators();
+        long totalTasksBefore = previousDay != null ? previousDay.getTotalTasks() : figures.totalTasks();
+        long completedTasksBefore = previousDay != null ? previousDay.getCompletedTasks() : figures.completedTasks();
 
         // Total Datasets
-        long totalDatasets = datasetRepository.count();
-        long datasetsYesterday = datasetRepository.countByCreatedAtBefore(yesterday);
         stats.add(new StatisticsDTO.StatItem(
                 "Total Datasets",
-                String.valueOf(totalDatasets),
-                calculatePercentageChange(datasetsYesterday, totalDatasets),
+                String.valueOf(figures.totalDatasets()),
+                calculatePercentageChange(datasetsBefore, figures.totalDatasets()),
                 "database"
         ));
 
         // Active Annotators
-        long activeAnnotators = utilisateurRepository.countByRoleAndActive(Utilisateur.Role.ANNOTATOR, true);
-        long activeAnnotatorsYesterday = utilisateurRepository.countByRoleAndActiveAndCreatedAtBefore(
-                Utilisateur.Role.ANNOTATOR, true, yesterday);
         stats.add(new StatisticsDTO.StatItem(
                 "Active Annotators",
-                String.valueOf(activeAnnotators),
-                calculateAbsoluteChange(activeAnnotatorsYesterday, activeAnnotators),
+                String.valueOf(figures.activeAnnotators()),
+                calculateAbsoluteChange(activeAnnotatorsBefore, figures.activeAnnotators()),
                 "users"
         ));
 
         // Annotations Today
-        LocalDateTime startOfToday = LocalDate.now().atStartOfDay();
-        LocalDateTime startOfYesterday = LocalDate.now().minusDays(1).atStartOfDay();
-        LocalDateTime endOfYesterday = startOfYesterday.plusDays(1).minusSeconds(1);
-        long annotationsToday = annotationRepository.countByAnnotateAtAfter(startOfToday);
-        long annotationsYesterday = annotationRepository.countByAnnotateAtBetween(startOfYesterday, endOfYesterday);
+        long annotationsToday = figures.annotationsByDay().getOrDefault(LocalDate.now(), 0L);
+        long annotationsYesterday = figures.annotationsByDay().getOrDefault(LocalDate.now().minusDays(1), 0L);
         stats.add(new StatisticsDTO.StatItem(
                 "Annotations Today",
                 String.valueOf(annotationsToday),
@@ -152,11 +207,10 @@ public class StatisticsService {
         ));
 
         // Completion Rate
-        double completionRate = calculateCompletionRate();
-        long totalTasksYesterday = tacheRepository.countByDateCreationBefore(yesterday);
-        long completedTasksYesterday = tacheRepository.countByStatutAndDateCreationBefore(
-                Tache.StatutTache.TERMINEE, yesterday);
-        double completionRateYesterday = totalTasksYesterday > 0 ? (completedTasksYesterday * 100.0 / totalTasksYesterday) : 0.0;
+        double completionRate = figures.totalTasks() > 0
+                ? (figures.completedTasks() * 100.0 / figures.totalTasks()) : 0.0;
+        double completionRateYesterday = totalTasksBefore > 0
+                ? (completedTasksBefore * 100.0 / totalTasksBefore) : 0.0;
         stats.add(new StatisticsDTO.StatItem(
                 "Completion Rate",
                 String.format("%.0f%%", completionRate),
@@ -173,7 +227,7 @@ public class StatisticsService {
      * @return List of ActivityItem objects.
      */
     private List<StatisticsDTO.ActivityItem> getRecentActivities() {
-        return activityLogRepository.findTop5ByOrderByTimestampDesc()
+        return activityLogService.getRecentActivities()
                 .stream()
                 .map(log -> new StatisticsDTO.ActivityItem(
                         log.getDescription(),
@@ -184,59 +238,16 @@ public class StatisticsService {
     }
 
     /**
-     * Retrieves progress for all datasets.
-     *
-     * @return List of DatasetProgress objects.
-     */
-    private List<StatisticsDTO.DatasetProgress> getDatasetsProgress() {
-        return datasetRepository.findAll()
-                .stream()
-                .map(dataset -> {
-                    long completed = tacheRepository.countByDatasetIdAndStatut(dataset.getId(), Tache.StatutTache.TERMINEE);
-                    long pending = tacheRepository.countByDatasetIdAndStatutIn(
-                            dataset.getId(), List.of(Tache.StatutTache.EN_ATTENTE, Tache.StatutTache.EN_COURS));
-                    return new StatisticsDTO.DatasetProgress(dataset.getName(), (int) completed, (int) pending);
-                })
-                .toList();
-    }
-
-    /**
-     * Retrieves the top 5 annotators by completion rate.
-     *
-     * @return List of TopAnnotator objects.
-     */
-    private List<StatisticsDTO.TopAnnotator> getTopAnnotators() {
-        return utilisateurRepository.findByRole(Utilisateur.Role.ANNOTATOR)
-                .stream()
-                .map(annotator -> {
-                    long totalTasks = tacheRepository.countByAnnotateurId(annotator.getId());
-                    long completedTasks = tacheRepository.countByAnnotateurIdAndStatut(
-                            annotator.getId(), Tache.StatutTache.TERMINEE);
-                    int completion = totalTasks > 0 ? (int) (completedTasks * 100 / totalTasks) : 0;
-                    return new StatisticsDTO.TopAnnotator(annotator.getPrenom() + " " + annotator.getNom(), completion);
-                })
-                .sorted((a, b) -> Integer.compare(b.getCompletion(), a.getCompletion()))
-                .limit(5)
-                .toList();
-    }
-
-    /**
-     * Retrieves annotation trend for the past 7 days.
+     * Builds the annotation trend for the past 7 days.
      *
+     * @param figures Current dashboard figures.
      * @return List of AnnotationTrend objects.
      */
-    private List<StatisticsDTO.AnnotationTrend> getAnnotationTrend() {
-        LocalDateTime startOfPeriod = LocalDate.now().minusDays(6).atStartOfDay();
-        LocalDateTime endOfPeriod = LocalDateTime.now();
-        Map<String, Long> countMap = annotationRepository.countAnnotationsByDay(startOfPeriod, endOfPeriod)
-                .stream()
-                .collect(Collectors.toMap(row -> row[0].toString(), row -> (Long) row[1]));
-
+    private List<StatisticsDTO.AnnotationTrend> getAnnotationTrend(StatisticsEngine.Figures figures) {
         List<StatisticsDTO.AnnotationTrend> trend = new ArrayList<>();
         for (int i = 0; i < 7; i++) {
             LocalDate date = LocalDate.now().minusDays(6 - i);
-            String dateStr = date.toString();
-            trend.add(new StatisticsDTO.AnnotationTrend(dateStr, countMap.getOrDefault(dateStr, 0L)));
+            trend.add(new StatisticsDTO.AnnotationTrend(date.toString(), figures.annotationsByDay().getOrDefault(date, 0L)));
         }
         return trend;
     }
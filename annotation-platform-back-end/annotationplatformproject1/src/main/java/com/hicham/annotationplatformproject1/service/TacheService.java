@@ -1,8 +1,11 @@
 package com.hicham.annotationplatformproject1.service;
 
 import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.dto.AnnotationBatchRequest;
+import com.hicham.annotationplatformproject1.dto.AnnotationBatchResultDTO;
 import com.hicham.annotationplatformproject1.dto.AnnotationRequest;
 import com.hicham.annotationplatformproject1.dto.DatasetTaskSummaryDTO;
+import com.hicham.annotationplatformproject1.dto.TaskBatchDTO;
 import com.hicham.annotationplatformproject1.dto.TaskGroupDTO;
 import com.hicham.annotationplatformproject1.exception.ServiceException;
 import com.hicham.annotationplatformproject1.model.*;
@@ -12,6 +15,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -21,16 +25,20 @@ import java.util.stream.Collectors;
 @Service
 public class TacheService {
 
+    private static final int MAX_BATCH_SIZE = 100;
+
     private final TacheRepository tacheRepository;
     private final CoupeTexteRepository coupeTexteRepository;
     private final AnnotationRepository annotationRepository;
     private final DatasetRepository datasetRepository;
     private final UtilisateurRepository utilisateurRepository;
     private final ActivityLogService activityLogService;
-    private final UserDatasetProgressRepository userDatasetProgressRepository;
+    private final UserDatasetProgressBuffer progressBuffer;
     private final AnnotationService annotationService;
     private final ValidationService validationService;
     private final StatisticsService statisticsService;
+    private final LabelSetCache labelSetCache;
+    private final TimeOnTaskTracker timeOnTaskTracker;
 
     public TacheService(TacheRepository tacheRepository,
                         CoupeTexteRepository coupeTexteRepository,
@@ -38,20 +46,24 @@ public class TacheService {
                         DatasetRepository datasetRepository,
                         UtilisateurRepository utilisateurRepository,
                         ActivityLogService activityLogService,
-                        UserDatasetProgressRepository userDatasetProgressRepository,
+                        UserDatasetProgressBuffer progressBuffer,
                         AnnotationService annotationService,
                         ValidationService validationService,
-                        StatisticsService statisticsService) {
+                        StatisticsService statisticsService,
+                        LabelSetCache labelSetCache,
+                        TimeOnTaskTracker timeOnTaskTracker) {
         this.tacheRepository = tacheRepository;
         this.coupeTexteRepository = coupeTexteRepository;
         this.annotationRepository = annotationRepository;
         this.datasetRepository = datasetRepository;
         this.utilisateurRepository = utilisateurRepository;
         this.activityLogService = activityLogService;
-        this.userDatasetProgressRepository = userDatasetProgressRepository;
+        this.progressBuffer = progressBuffer;
         this.annotationService = annotationService;
         this.validationService = validationService;
         this.statisticsService = statisticsService;
+        this.labelSetCache = labelSetCache;
+        this.timeOnTaskTracker = timeOnTaskTracker;
     }
 
     /**
@@ -60,9 +72,9 @@ public class TacheService {
     public ApiResponse<TaskGroupDTO> getTasksByAnnotator(Long annotatorId, Long datasetId, Integer page) {
         try {
             validationService.validateAnnotator(annotatorId);
-            Dataset dataset = validationService.validateDataset(datasetId);
+            ValidationService.DatasetHeader dataset = validationService.validateDatasetHeader(datasetId);
 
-            int pageToFetch = page != null ? page : getLastPage(annotatorId, datasetId);
+            int pageToFetch = page != null ? page : progressBuffer.getLastPage(annotatorId, datasetId);
             Pageable pageable = PageRequest.of(pageToFetch, 1);
             Page<Tache> taskPage = tacheRepository.findByAnnotateurIdAndDatasetId(annotatorId, datasetId, pageable);
 
@@ -75,23 +87,24 @@ public class TacheService {
             }
 
             Tache task = taskPage.getContent().get(0);
+            if (task.getStatut() != Tache.StatutTache.TERMINEE) {
+                timeOnTaskTracker.markServed(annotatorId, List.<Long[]>of(new Long[]{task.getId(), task.getCoupeTexte().getId()}));
+            }
             List<TaskGroupDTO.TaskDetailDTO> taskDetails = buildTaskDetails(task, annotatorId);
 
             TaskGroupDTO taskGroup = new TaskGroupDTO(
                     task.getId(),
                     datasetId,
-                    dataset.getName(),
+                    dataset.name(),
                     taskDetails,
                     statisticsService.calculateDatasetProgress(datasetId),
                     pageToFetch,
                     taskPage.getTotalPages(),
                     taskPage.getTotalElements(),
-                    dataset.getClasses().stream()
-                            .map(cls -> new TaskGroupDTO.ClassDTO(cls.getId(), cls.getNomClasse()))
-                            .toList()
+                    classDTOs(datasetId)
             );
 
-            updateLastPage(annotatorId, datasetId, pageToFetch);
+            progressBuffer.updateLastPage(annotatorId, datasetId, pageToFetch);
             activityLogService.logActivity(
                     "TASK_RETRIEVED",
                     "Retrieved task for annotator ID: " + annotatorId + ", dataset ID: " + datasetId + ", page: " + pageToFetch
@@ -109,6 +122,85 @@ public class TacheService {
         }
     }
 
+    /**
+     * Retrieves the next tasks of an annotator in a dataset in one round trip: texts, existing labels,
+     * the dataset's classes and a cursor for the following batch.
+     *
+     * @param cursor      ID of the last task already received (null to start from the beginning).
+     * @param size        Number of tasks to return (1 to MAX_BATCH_SIZE).
+     * @param pendingOnly Skip tasks that are already TERMINEE.
+     */
+    public ApiResponse<TaskBatchDTO> getTaskBatch(Long annotatorId, Long datasetId, Long cursor, int size, boolean pendingOnly) {
+        try {
+            validationService.validateAnnotator(annotatorId);
+            ValidationService.DatasetHeader dataset = validationService.validateDatasetHeader(datasetId);
+            int batchSize = Math.max(1, Math.min(size, MAX_BATCH_SIZE));
+
+            List<Object[]> rows = tacheRepository.findTaskBatch(
+                    annotatorId, datasetId, cursor != null ? cursor : 0L, pendingOnly,
+                    Tache.StatutTache.TERMINEE, PageRequest.of(0, batchSize));
+
+            timeOnTaskTracker.markServed(annotatorId, rows.stream()
+                    .filter(row -> row[4] != Tache.StatutTache.TERMINEE)
+                    .map(row -> new Long[]{(Long) row[0], (Long) row[1]})
+                    .toList());
+
+            Map<Long, Object[]> labels = new HashMap<>();
+            if (!rows.isEmpty()) {
+                List<Long> coupeTexteIds = rows.stream().map(row -> (Long) row[1]).toList();
+                for (Object[] label : annotationRepository.findLabelsByAnnotateurIdAndCoupeTexteIdIn(annotatorId, coupeTexteIds)) {
+                    labels.put((Long) label[0], label);
+                }
+            }
+
+            List<TaskBatchDTO.TaskItemDTO> tasks = rows.stream()
+                    .map(row -> {
+                        Object[] label = labels.get((Long) row[1]);
+                        return new TaskBatchDTO.TaskItemDTO(
+                                (Long) row[0],
+                                (Long) row[1],
+                                (String) row[2],
+                                (String) row[3],
+                                String.valueOf(row[4]),
+                                (LocalDateTime) row[5],
+                                (LocalDateTime) row[6],
+                                label != null ? (Long) label[1] : null,
+                                label != null ? (String) label[2] : null
+                        );
+                    })
+                    .toList();
+
+            TaskBatchDTO batch = new TaskBatchDTO(
+                    datasetId,
+                    dataset.name(),
+                    tasks,
+                    classDTOs(datasetId),
+                    tasks.size() == batchSize ? tasks.get(tasks.size() - 1).getTaskId() : null
+            );
+
+            activityLogService.logActivity(
+                    "TASK_BATCH_RETRIEVED",
+                    "Retrieved " + tasks.size() + " tasks for annotator ID: " + annotatorId + ", dataset ID: " + datasetId
+            );
+            return ApiResponse.success("Tasks retrieved successfully", batch);
+        } catch (ServiceException e) {
+            activityLogService.logActivity("TASKS_FETCH_ERROR", e.getMessage());
+            return ApiResponse.error(e.getMessage());
+        } catch (Exception e) {
+            activityLogService.logActivity(
+                    "TASKS_FETCH_ERROR",
+                    "Failed to retrieve task batch for annotator ID " + annotatorId + ", dataset ID: " + datasetId + ": " + e.getMessage()
+            );
+            return ApiResponse.error("Failed to retrieve tasks: " + e.getMessage());
+        }
+    }
+
+    private List<TaskGroupDTO.ClassDTO> classDTOs(Long datasetId) {
+        return labelSetCache.getLabelSet(datasetId).stream()
+                .map(label -> new TaskGroupDTO.ClassDTO(label.id(), label.nomClasse()))
+                .toList();
+    }
+
     /**
      * Builds task details for a single task.
      */
@@ -133,16 +225,9 @@ public class TacheService {
      */
     public ApiResponse<String> saveAnnotation(Long annotatorId, Long coupeTexteId, Long classeChoisieId) {
         try {
-            // Placeholder for durationInSeconds (to be provided by you)
-            Long durationInSeconds = null; // Replace with your duration logic
             AnnotationRequest request = new AnnotationRequest(annotatorId, coupeTexteId, classeChoisieId);
             ApiResponse<String> response = annotationService.saveAnnotation(request);
 
-            if (response.isSuccess()) {
-                tacheRepository.findByCoupeTexteIdAndAnnotateurId(coupeTexteId, annotatorId)
-                        .ifPresent(tache -> updateLastPage(annotatorId, tache.getDataset().getId(), getLastPage(annotatorId, tache.getDataset().getId())));
-            }
-
             return response;
         } catch (Exception e) {
             activityLogService.logActivity(
@@ -154,37 +239,22 @@ public class TacheService {
     }
 
     /**
-     * Retrieves the last viewed page for an annotator and dataset.
+     * Saves a batch of annotations for one annotator, with a result per item.
      */
-    private int getLastPage(Long userId, Long datasetId) {
-        return userDatasetProgressRepository.findByUserIdAndDatasetId(userId, datasetId)
-                .map(UserDatasetProgress::getLastPage)
-                .orElse(0);
-    }
-
-    /**
-     * Updates the last viewed page for an annotator and dataset.
-     */
-    private void updateLastPage(Long userId, Long datasetId, int page) {
-        UserDatasetProgress progress = userDatasetProgressRepository.findByUserIdAndDatasetId(userId, datasetId)
-                .orElseGet(() -> {
-                    UserDatasetProgress newProgress = new UserDatasetProgress();
-                    newProgress.setUser(utilisateurRepository.findById(userId).orElseThrow());
-                    newProgress.setDatasetId(datasetId);
-                    return newProgress;
-                });
-        progress.setLastPage(page);
-        userDatasetProgressRepository.save(progress);
+    public ApiResponse<AnnotationBatchResultDTO> saveAnnotations(AnnotationBatchRequest request) {
+        return annotationService.saveAnnotations(request);
     }
 
     /**
      * Retrieves task summaries for an annotator across all datasets.
+     * Totals and annotated counts come from one aggregate query; each summary carries the
+     * dataset's first task as its entry point.
      */
     public ApiResponse<List<DatasetTaskSummaryDTO>> getTaskSummaryByAnnotator(Long annotatorId) {
         try {
-            Utilisateur annotator = validationService.validateAnnotator(annotatorId);
-            List<Tache> tasks = tacheRepository.findByAnnotateurId(annotatorId);
-            if (tasks.isEmpty()) {
+            validationService.validateAnnotator(annotatorId);
+            List<Object[]> rows = tacheRepository.summarizeTasksByAnnotateurId(annotatorId);
+            if (rows.isEmpty()) {
                 activityLogService.logActivity(
                         "TASK_SUMMARY_RETRIEVED",
                         "No tasks found for annotator ID: " + annotatorId
@@ -192,11 +262,8 @@ public class TacheService {
                 return ApiResponse.success("No tasks found for annotator", List.of());
             }
 
-            Map<Long, List<Tache>> tasksByDataset = tasks.stream()
-                    .collect(Collectors.groupingBy(tache -> tache.getDataset().getId()));
-
-            List<DatasetTaskSummaryDTO> summaries = tasksByDataset.entrySet().stream()
-                    .map(entry -> buildDatasetSummary(entry.getKey(), entry.getValue(), annotatorId))
+            List<DatasetTaskSummaryDTO> summaries = rows.stream()
+                    .map(this::buildDatasetSummary)
                     .toList();
 
             activityLogService.logActivity(
@@ -217,32 +284,20 @@ public class TacheService {
     }
 
     /**
-     * Builds a dataset summary for a set of tasks.
+     * Builds a dataset summary from an aggregate row.
      */
-    private DatasetTaskSummaryDTO buildDatasetSummary(Long datasetId, List<Tache> tasks, Long annotatorId) {
-        Dataset dataset = validationService.validateDataset(datasetId);
-        List<DatasetTaskSummaryDTO.TaskSummaryDTO> taskSummaries = tasks.stream()
-                .map(task -> new DatasetTaskSummaryDTO.TaskSummaryDTO(task.getId()))
-                .toList();
-
-        List<Long> coupeTexteIds = tasks.stream()
-                .map(Tache::getCoupeTexte)
-                .filter(Objects::nonNull)
-                .map(CoupeTexte::getId)
-                .distinct()
-                .toList();
-
-        long totalCoupeTextes = coupeTexteIds.size();
-        long annotatedCount = coupeTexteIds.isEmpty() ? 0 :
-                annotationRepository.countByCoupeTexteIdInAndAnnotateurId(coupeTexteIds, annotatorId);
+    private DatasetTaskSummaryDTO buildDatasetSummary(Object[] row) {
+        String description = (String) row[2];
+        long totalCoupeTextes = ((Number) row[3]).longValue();
+        long annotatedCount = ((Number) row[4]).longValue();
 
         return new DatasetTaskSummaryDTO(
-                datasetId,
-                dataset.getName(),
-                dataset.getDescription() != null ? dataset.getDescription() : "No description",
-                taskSummaries,
+                (Long) row[0],
+                (String) row[1],
+                description != null ? description : "No description",
+                List.of(new DatasetTaskSummaryDTO.TaskSummaryDTO((Long) row[5])),
                 totalCoupeTextes,
                 annotatedCount + "/" + totalCoupeTextes
         );
     }
-}
\ No newline at end of file
+}
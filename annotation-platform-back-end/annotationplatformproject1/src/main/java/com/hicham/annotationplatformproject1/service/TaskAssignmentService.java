@@ -3,9 +3,14 @@ package com.hicham.annotationplatformproject1.service;
 import com.hicham.annotationplatformproject1.dto.ApiResponse;
 import com.hicham.annotationplatformproject1.dto.AssignmentRequest;
 import com.hicham.annotationplatformproject1.dto.UtilisateurDTO;
+import com.hicham.annotationplatformproject1.event.TasksAssignedEvent;
+import com.hicham.annotationplatformproject1.event.TasksUnassignedEvent;
 import com.hicham.annotationplatformproject1.model.*;
 import com.hicham.annotationplatformproject1.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -15,26 +20,39 @@ import java.util.stream.Collectors;
 @Service
 public class TaskAssignmentService {
 
+    private static final int ASSIGNMENT_CHUNK_SIZE = 500;
+    private static final int MAX_CONFLICT_ROUNDS = 5;
+
     private final CoupeTexteRepository coupeTexteRepository;
     private final UtilisateurRepository utilisateurRepository;
     private final TacheRepository tacheRepository;
     private final DatasetRepository datasetRepository;
     private final ActivityLogService activityLogService;
     private final AnnotationRepository annotationRepository;
+    private final AnnotatorWorkloadTracker workloadTracker;
+    private final TextStatisticsService textStatisticsService;
+    private final ApplicationEventPublisher eventPublisher;
     public TaskAssignmentService(CoupeTexteRepository coupeTexteRepository,
                                  UtilisateurRepository utilisateurRepository,
                                  TacheRepository tacheRepository,
                                  DatasetRepository datasetRepository,
-                                 ActivityLogService activityLogService, AnnotationService annotationService, AnnotationRepository annotationRepository) {
+                                 ActivityLogService activityLogService, AnnotationService annotationService, AnnotationRepository annotationRepository,
+                                 AnnotatorWorkloadTracker workloadTracker,
+                                 TextStatisticsService textStatisticsService,
+                                 ApplicationEventPublisher eventPublisher) {
         this.coupeTexteRepository = coupeTexteRepository;
         this.utilisateurRepository = utilisateurRepository;
         this.tacheRepository = tacheRepository;
         this.datasetRepository = datasetRepository;
         this.activityLogService = activityLogService;
         this.annotationRepository = annotationRepository;
+        this.workloadTracker = workloadTracker;
+        this.textStatisticsService = textStatisticsService;
+        this.eventPublisher = eventPublisher;
     }
 
-    @Transactional
+    // READ_COMMITTED so that each chunk read sees pairs claimed by concurrent assignments in the meantime
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public ApiResponse<String> assignTextPairs(Long datasetId, AssignmentRequest request) {
         try {
             Dataset dataset = datasetRepository.findById(datasetId)
@@ -49,56 +67,84 @@ public class TaskAssignmentService {
                 return ApiResponse.error("No valid annotators found");
             }
 
-            List<CoupeTexte> unassignedTextPairs = coupeTexteRepository.findUnassignedByDatasetId(datasetId);
+            coupeTexteRepository.backfillRandomKeys(datasetId);
+            long poolSize = coupeTexteRepository.countUnassignedByDatasetId(datasetId);
 
-            if (unassignedTextPairs.isEmpty()) {
+            if (poolSize == 0) {
                 return ApiResponse.error("No unassigned text pairs available");
             }
 
-            Collections.shuffle(unassignedTextPairs);
-
-            int pairsPerAnnotator = unassignedTextPairs.size() / annotateurs.size();
-            int remainingPairs = unassignedTextPairs.size() % annotateurs.size();
-
-            int startIndex = 0;
-            for (int i = 0; i < annotateurs.size(); i++) {
-                int endIndex = startIndex + pairsPerAnnotator + (i < remainingPairs ? 1 : 0);
+            // Set deadline: use request deadline if provided, otherwise default to 7 days from now
+            LocalDateTime deadline = request.getDeadline() != null
+                    ? request.getDeadline()
+                    : LocalDateTime.now().plusDays(7);
+
+            // Projected load of each annotator in estimated effort (tokens). Open work in other datasets
+            // is only known as a task count, so it is converted with this dataset's mean pair effort.
+            textStatisticsService.backfillStatistics(datasetId);
+            Double meanTokens = coupeTexteRepository.averageTokenCountByDatasetId(datasetId);
+            double meanEffort = TextStatisticsService.estimatedEffort(meanTokens != null ? (int) Math.round(meanTokens) : null);
+            Map<Long, Long> openTasks = workloadTracker.getOpenTasks(
+                    annotateurs.stream().map(Utilisateur::getId).toList());
+            double[] projectedEffort = annotateurs.stream()
+                    .mapToDouble(u -> openTasks.get(u.getId()) * meanEffort)
+                    .toArray();
+            PriorityQueue<Integer> leastLoaded = new PriorityQueue<>(
+                    Comparator.<Integer>comparingDouble(i -> projectedEffort[i]).thenComparingInt(i -> i));
+            for (int i = 0; i < annotateurs.size(); i++) leastLoaded.add(i);
+            Map<Long, Long> tasksByAnnotator = new HashMap<>();
+
+            // Pairs are streamed from the index in random-key order, one chunk at a time, without their texts,
+            // and each goes to the annotator with the least projected effort. A pair only becomes a task once
+            // this call has won it with a conditional update, so concurrent assignments or reclaims never give
+            // the same pair two tasks; lost pairs are simply skipped and the next chunk is read.
+            long assignedTotal = 0;
+            int roundsWithoutProgress = 0;
+            while (assignedTotal < poolSize && roundsWithoutProgress < MAX_CONFLICT_ROUNDS) {
+                int chunkSize = (int) Math.min(ASSIGNMENT_CHUNK_SIZE, poolSize - assignedTotal);
+                List<Object[]> candidates = coupeTexteRepository.findUnassignedInRandomOrder(
+                        datasetId, PageRequest.of(0, chunkSize));
+                if (candidates.isEmpty()) break;
+
+                Map<Long, Integer> tokensByPair = new HashMap<>();
+                for (Object[] candidate : candidates) tokensByPair.put((Long) candidate[0], (Integer) candidate[1]);
+                List<Long> claimed = coupeTexteRepository.claimUnassigned(
+                        candidates.stream().map(candidate -> (Long) candidate[0]).toList());
+                roundsWithoutProgress = claimed.isEmpty() ? roundsWithoutProgress + 1 : 0;
+
+                List<Tache> taches = new ArrayList<>(claimed.size());
+                for (Long pairId : claimed) {
+                    int annotatorIndex = leastLoaded.poll();
+                    projectedEffort[annotatorIndex] += TextStatisticsService.estimatedEffort(tokensByPair.get(pairId));
+                    leastLoaded.add(annotatorIndex);
 
-                if (startIndex >= unassignedTextPairs.size()) break;
-
-                List<CoupeTexte> assignedPairs = unassignedTextPairs.subList(
-                        startIndex,
-                        Math.min(endIndex, unassignedTextPairs.size())
-                );
-
-                for (CoupeTexte pair : assignedPairs) {
                     Tache tache = new Tache();
                     tache.setDataset(dataset);
-                    tache.setAnnotateur(annotateurs.get(i));
-                    tache.setCoupeTexte(pair);
+                    tache.setAnnotateur(annotateurs.get(annotatorIndex));
+                    tache.setCoupeTexte(coupeTexteRepository.getReferenceById(pairId));
                     tache.setStatut(Tache.StatutTache.EN_ATTENTE);
                     tache.setDateCreation(LocalDateTime.now());
-
-                    // Set deadline: use request deadline if provided, otherwise default to 7 days from now
-                    LocalDateTime deadline = request.getDeadline() != null
-                            ? request.getDeadline()
-                            : LocalDateTime.now().plusDays(7); // Default: 7 days from May 13, 2025
                     tache.setDateFin(deadline);
+                    taches.add(tache);
 
-                    tacheRepository.save(tache);
-
-                    pair.setAssigned(true);
-                    coupeTexteRepository.save(pair);
+                    tasksByAnnotator.merge(annotateurs.get(annotatorIndex).getId(), 1L, Long::sum);
                 }
 
-                startIndex = endIndex;
+                tacheRepository.saveAll(taches);
+                assignedTotal += claimed.size();
+            }
+
+            if (assignedTotal == 0) {
+                return ApiResponse.error("No unassigned text pairs available");
             }
 
+            eventPublisher.publishEvent(new TasksAssignedEvent(datasetId, tasksByAnnotator));
+
             activityLogService.logActivity(
                     "TASKS_ASSIGNED",
-                    "Assigned " + unassignedTextPairs.size() + " text pairs (each with text1 and text2) to " +
+                    "Assigned " + assignedTotal + " text pairs (each with text1 and text2) to " +
                             annotateurs.size() + " annotators for dataset: " + datasetId +
-                            " with deadline: " + (request.getDeadline() != null ? request.getDeadline() : LocalDateTime.now().plusDays(7))
+                            " with deadline: " + deadline
             );
 
             return ApiResponse.success("Text pairs assigned successfully", null);
@@ -154,52 +200,26 @@ public class TaskAssignmentService {
     public ApiResponse<String> unassignAnnotatorFromDataset(Long datasetId, Long annotatorId) {
         try {
             // Validate dataset existence
-            Dataset dataset = datasetRepository.findById(datasetId)
-                    .orElseThrow(() -> new RuntimeException("Dataset not found"));
+            if (!datasetRepository.existsById(datasetId)) {
+                throw new RuntimeException("Dataset not found");
+            }
 
             // Validate annotator existence
-            Utilisateur annotator = utilisateurRepository.findById(annotatorId)
+            utilisateurRepository.findById(annotatorId)
                     .filter(u -> u.getRole() == Utilisateur.Role.ANNOTATOR)
                     .orElseThrow(() -> new RuntimeException("Annotator not found"));
 
-            // Fetch all tasks for this annotator and dataset
-            List<Tache> tasks = tacheRepository.findByDatasetIdAndAnnotateurId(datasetId, annotatorId);
-            if (tasks.isEmpty()) {
-                return ApiResponse.error("No tasks found for this annotator in the dataset");
-            }
-
-            // Filter tasks that are not completed (i.e., not TERMINE)
-            List<Tache> tasksToUnassign = tasks.stream()
-                    .filter(task -> task.getStatut() != Tache.StatutTache.TERMINEE)
-                    .collect(Collectors.toList());
-
-            if (tasksToUnassign.isEmpty()) {
-                return ApiResponse.success("No uncompleted tasks to unassign for this annotator in the dataset", null);
-            }
-
-            // Unassign the annotator from non-completed tasks
-            for (Tache task : tasksToUnassign) {
-                task.setAnnotateur(null); // Remove annotator assignment
-                task.setStatut(Tache.StatutTache.EN_ATTENTE); // Reset to unassigned state
-                task.setDateFin(null); // Clear deadline if any
-                tacheRepository.save(task);
-
-                // Update the associated CoupeTexte
-                CoupeTexte coupeTexte = task.getCoupeTexte();
-                if (coupeTexte != null) {
-                    // Only set assigned to false if there are no completed annotations
-                    boolean hasAnnotation = annotationRepository.existsByCoupeTexteId(coupeTexte.getId());
-                    if (!hasAnnotation) {
-                        coupeTexte.setAssigned(false);
-                        coupeTexteRepository.save(coupeTexte);
-                    }
-                }
+            long unassigned = unassignOpenTasks(datasetId, List.of(annotatorId));
+            if (unassigned == 0) {
+                return tacheRepository.existsByAnnotateurIdAndDatasetId(annotatorId, datasetId)
+                        ? ApiResponse.success("No uncompleted tasks to unassign for this annotator in the dataset", null)
+                        : ApiResponse.error("No tasks found for this annotator in the dataset");
             }
 
             activityLogService.logActivity(
                     "ANNOTATOR_UNASSIGNED",
                     "Unassigned annotator ID " + annotatorId + " from dataset ID " + datasetId +
-                            ". Unassigned " + tasksToUnassign.size() + " tasks."
+                            ". Unassigned " + unassigned + " tasks."
             );
 
             return ApiResponse.success("Annotator unassigned successfully from uncompleted tasks in dataset", null);
@@ -213,4 +233,69 @@ public class TaskAssignmentService {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Unassigns several annotators from a dataset at once.
+     */
+    @Transactional
+    public ApiResponse<String> unassignAnnotatorsFromDataset(Long datasetId, List<Long> annotatorIds) {
+        try {
+            if (annotatorIds == null || annotatorIds.isEmpty()) {
+                return ApiResponse.error("No annotators given");
+            }
+            if (!datasetRepository.existsById(datasetId)) {
+                throw new RuntimeException("Dataset not found");
+            }
+
+            List<Long> annotateurIds = utilisateurRepository.findAllById(annotatorIds)
+                    .stream()
+                    .filter(u -> u.getRole() == Utilisateur.Role.ANNOTATOR)
+                    .map(Utilisateur::getId)
+                    .collect(Collectors.toList());
+
+            if (annotateurIds.isEmpty()) {
+                return ApiResponse.error("No valid annotators found");
+            }
+
+            long unassigned = unassignOpenTasks(datasetId, annotateurIds);
+
+            activityLogService.logActivity(
+                    "ANNOTATORS_UNASSIGNED",
+                    "Unassigned " + annotateurIds.size() + " annotators from dataset ID " + datasetId +
+                            ". Unassigned " + unassigned + " tasks."
+            );
+
+            return ApiResponse.success("Unassigned " + unassigned + " uncompleted tasks from " +
+                    annotateurIds.size() + " annotators in dataset", null);
+        } catch (Exception e) {
+            activityLogService.logActivity(
+                    "ANNOTATOR_UNASSIGN_ERROR",
+                    "Failed to unassign annotators: " + e.getMessage()
+            );
+            return ApiResponse.error("Failed to unassign annotators: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Takes the open (not TERMINEE) tasks of the given annotators in a dataset back with set-based updates:
+     * their pairs return to the pool unless already annotated, and the tasks lose their annotator.
+     *
+     * @return Number of tasks unassigned.
+     */
+    private long unassignOpenTasks(Long datasetId, List<Long> annotatorIds) {
+        Map<Long, Long> tasksByAnnotator = new HashMap<>();
+        for (Object[] row : tacheRepository.countOpenTasksByDatasetGroupedByAnnotateur(
+                datasetId, annotatorIds, Tache.StatutTache.TERMINEE)) {
+            tasksByAnnotator.put((Long) row[0], (Long) row[1]);
+        }
+        if (tasksByAnnotator.isEmpty()) return 0;
+
+        // Pairs first, while the tasks still point at their annotators
+        coupeTexteRepository.releaseUnannotatedForAnnotators(datasetId, annotatorIds, Tache.StatutTache.TERMINEE);
+        int unassigned = tacheRepository.unassignOpenTasks(
+                datasetId, annotatorIds, Tache.StatutTache.EN_ATTENTE, Tache.StatutTache.TERMINEE);
+
+        eventPublisher.publishEvent(new TasksUnassignedEvent(datasetId, tasksByAnnotator));
+        return unassigned;
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.event.TasksUnassignedEvent;
+import com.hicham.annotationplatformproject1.model.Tache;
+import com.hicham.annotationplatformproject1.repository.CoupeTexteRepository;
+import com.hicham.annotationplatformproject1.repository.TacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background sweeper that takes overdue, unfinished tasks away from their annotators and returns
+ * the pairs to the pool. Runs on one node at a time and works in bounded, set-based batches.
+ */
+@Service
+public class TaskReclaimService {
+
+    private static final String LOCK_NAME = "task-reclaim";
+
+    private final TacheRepository tacheRepository;
+    private final CoupeTexteRepository coupeTexteRepository;
+    private final SchedulerLockService schedulerLockService;
+    private final ActivityLogService activityLogService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int maxBatches;
+
+    private final Counter reclaimedCounter;
+    private final DistributionSummary overdueSummary;
+    private final AtomicLong oldestOverdueSeconds = new AtomicLong();
+
+    public TaskReclaimService(TacheRepository tacheRepository,
+                              CoupeTexteRepository coupeTexteRepository,
+                              SchedulerLockService schedulerLockService,
+                              ActivityLogService activityLogService,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${tasks.reclaim.batch-size:500}") int batchSize,
+                              @Value("${tasks.reclaim.max-batches:20}") int maxBatches) {
+        this.tacheRepository = tacheRepository;
+        this.coupeTexteRepository = coupeTexteRepository;
+        this.schedulerLockService = schedulerLockService;
+        this.activityLogService = activityLogService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+
+        this.reclaimedCounter = Counter.builder("annotation.tasks.reclaimed")
+                .description("Overdue tasks taken back from annotators")
+                .register(meterRegistry);
+        this.overdueSummary = DistributionSummary.builder("annotation.tasks.reclaimed.overdue")
+                .description("How long reclaimed tasks had been overdue")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        meterRegistry.gauge("annotation.tasks.overdue.oldest", oldestOverdueSeconds);
+    }
+
+    /**
+     * Reclaims up to maxBatches batches of overdue tasks, if this node holds the sweeper lease.
+     */
+    @Scheduled(fixedDelayString = "${tasks.reclaim.interval-ms:60000}", initialDelay = 60000)
+    public void reclaimOverdueTasks() {
+        if (!schedulerLockService.tryLock(LOCK_NAME, Duration.ofMinutes(5))) {
+            return;
+        }
+        try {
+            long total = 0;
+            oldestOverdueSeconds.set(0);
+            for (int batch = 0; batch < maxBatches; batch++) {
+                boolean firstBatch = batch == 0;
+                Integer reclaimed = transactionTemplate.execute(status -> reclaimBatch(firstBatch));
+                if (reclaimed == null || reclaimed == 0) break;
+                total += reclaimed;
+            }
+
+            if (total > 0) {
+                activityLogService.logActivity(
+                        "TASKS_RECLAIMED",
+                        "Reclaimed " + total + " overdue tasks and returned their text pairs to the pool"
+                );
+            }
+        } catch (Exception e) {
+            activityLogService.logActivity("TASK_RECLAIM_ERROR", "Failed to reclaim overdue tasks: " + e.getMessage());
+        } finally {
+            schedulerLockService.unlock(LOCK_NAME);
+        }
+    }
+
+    /**
+     * Reclaims one batch of the oldest overdue tasks.
+     *
+     * @return Number of tasks reclaimed.
+     */
+    private int reclaimBatch(boolean firstBatch) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> overdue = tacheRepository.findOverdueTasks(
+                now, Tache.StatutTache.TERMINEE, PageRequest.of(0, batchSize));
+        if (overdue.isEmpty()) return 0;
+
+        if (firstBatch) {
+            oldestOverdueSeconds.set(Duration.between((LocalDateTime) overdue.get(0)[4], now).toSeconds());
+        }
+
+        List<Long> taskIds = new ArrayList<>(overdue.size());
+        List<Long> pairIds = new ArrayList<>(overdue.size());
+        Map<Long, Map<Long, Long>> releasedByDataset = new HashMap<>();
+        for (Object[] row : overdue) {
+            taskIds.add((Long) row[0]);
+            pairIds.add((Long) row[2]);
+            releasedByDataset.computeIfAbsent((Long) row[3], id -> new HashMap<>())
+                    .merge((Long) row[1], 1L, Long::sum);
+            overdueSummary.record(Duration.between((LocalDateTime) row[4], now).toSeconds());
+        }
+
+        coupeTexteRepository.releaseUnannotated(pairIds);
+        int reclaimed = tacheRepository.reclaimTasks(taskIds, Tache.StatutTache.EN_ATTENTE, Tache.StatutTache.TERMINEE);
+        reclaimedCounter.increment(reclaimed);
+
+        releasedByDataset.forEach((datasetId, tasksByAnnotator) ->
+                eventPublisher.publishEvent(new TasksUnassignedEvent(datasetId, tasksByAnnotator)));
+        return reclaimed;
+    }
+}
@@ -0,0 +1,88 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.model.CoupeTexte;
+import com.hicham.annotationplatformproject1.repository.CoupeTexteRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes per-pair cost features (character and token counts) used to estimate annotation effort.
+ * Characters are UTF-16 code units and tokens are runs of non-whitespace characters, both at ingestion
+ * and when pairs ingested before the features existed are backfilled.
+ */
+@Service
+public class TextStatisticsService {
+
+    private static final int BACKFILL_PAGE_SIZE = 1000;
+
+    private final CoupeTexteRepository coupeTexteRepository;
+
+    public TextStatisticsService(CoupeTexteRepository coupeTexteRepository) {
+        this.coupeTexteRepository = coupeTexteRepository;
+    }
+
+    /**
+     * Fills charCount and tokenCount on every pair, in a parallel pass.
+     */
+    public void computeStatistics(List<CoupeTexte> textPairs) {
+        textPairs.parallelStream().forEach(pair -> {
+            pair.setCharCount(length(pair.getText1()) + length(pair.getText2()));
+            pair.setTokenCount(countTokens(pair.getText1()) + countTokens(pair.getText2()));
+        });
+    }
+
+    /**
+     * Computes the features of the pairs of a dataset that have none, one page of texts and one batched
+     * update at a time. Must be called in a transaction.
+     *
+     * @return Number of pairs updated.
+     */
+    public long backfillStatistics(Long datasetId) {
+        long updated = 0;
+        long afterId = 0;
+        while (true) {
+            List<Object[]> page = coupeTexteRepository.findWithoutTextStatistics(
+                    datasetId, afterId, PageRequest.of(0, BACKFILL_PAGE_SIZE));
+            if (page.isEmpty()) return updated;
+
+            List<Object[]> rows = new ArrayList<>(page.size());
+            for (Object[] pair : page) { // {id, text1, text2}
+                String text1 = (String) pair[1];
+                String text2 = (String) pair[2];
+                rows.add(new Object[]{pair[0], length(text1) + length(text2), countTokens(text1) + countTokens(text2)});
+            }
+            coupeTexteRepository.updateTextStatistics(rows);
+            updated += rows.size();
+            afterId = (Long) page.get(page.size() - 1)[0];
+        }
+    }
+
+    /**
+     * Estimated effort of a pair in tokens, never less than 1 so that empty or legacy pairs still count.
+     */
+    public static long estimatedEffort(Integer tokenCount) {
+        return tokenCount != null && tokenCount > 0 ? tokenCount : 1L;
+    }
+
+    private static int length(String text) {
+        return text != null ? text.length() : 0;
+    }
+
+    private static int countTokens(String text) {
+        if (text == null) return 0;
+        int tokens = 0;
+        boolean inToken = false;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                inToken = false;
+            } else if (!inToken) {
+                inToken = true;
+                tokens++;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,128 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hicham.annotationplatformproject1.model.Tache;
+import com.hicham.annotationplatformproject1.repository.TacheRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Measures time on task: when a task is handed out it is marked EN_COURS with its serve time
+ * (Tache.dateDebut), and on submit the elapsed time is returned for storage and recorded in the
+ * annotation.labeling.time.dataset and annotation.labeling.time.annotator timers (p50/p95/p99).
+ * Serve times are also kept in a bounded in-memory map so the submit path normally needs no extra
+ * read; tasks served before a restart or by another instance fall back to Tache.dateDebut.
+ * Timers not recorded for a day are removed from the registry, so their number stays bounded.
+ */
+@Component
+public class TimeOnTaskTracker {
+
+    private static final int MAX_TRACKED_TASKS = 500_000;
+    private static final Duration MAX_TRACKED_TIME = Duration.ofDays(7);
+    private static final int MAX_TIMERS = 10_000;
+    private static final Duration TIMER_IDLE_TIMEOUT = Duration.ofDays(1);
+
+    private final TacheRepository tacheRepository;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, LocalDateTime> servedAt;
+    private final Cache<String, Timer> timers;
+
+    public TimeOnTaskTracker(TacheRepository tacheRepository, MeterRegistry meterRegistry) {
+        this.tacheRepository = tacheRepository;
+        this.meterRegistry = meterRegistry;
+        this.servedAt = Caffeine.newBuilder()
+                .maximumSize(MAX_TRACKED_TASKS)
+                .expireAfterWrite(MAX_TRACKED_TIME)
+                .build();
+        this.timers = Caffeine.newBuilder()
+                .maximumSize(MAX_TIMERS)
+                .expireAfterAccess(TIMER_IDLE_TIMEOUT)
+                .<String, Timer>evictionListener((key, timer, cause) -> {
+                    if (timer != null) meterRegistry.remove(timer);
+                })
+                .build();
+    }
+
+    /**
+     * Records that tasks were handed out to an annotator. Tasks still EN_ATTENTE move to EN_COURS;
+     * a task served again keeps its first serve time.
+     *
+     * @param tasks {taskId, coupeTexteId} of the served tasks that are not TERMINEE.
+     */
+    @Transactional
+    public void markServed(Long annotatorId, List<Long[]> tasks) {
+        if (tasks.isEmpty()) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        tacheRepository.markServed(tasks.stream().map(task -> task[0]).toList(),
+                Tache.StatutTache.EN_ATTENTE, Tache.StatutTache.EN_COURS, now);
+        for (Long[] task : tasks) {
+            servedAt.asMap().putIfAbsent(key(annotatorId, task[1]), now);
+        }
+    }
+
+    /**
+     * Returns the time since the pair was served to the annotator, or null when the serve time is unknown.
+     * Reads the task's persisted serve time when it is not kept in memory.
+     */
+    public Duration elapsed(Long annotatorId, Long coupeTexteId, LocalDateTime submittedAt) {
+        LocalDateTime served = servedAt.getIfPresent(key(annotatorId, coupeTexteId));
+        if (served == null) {
+            served = tacheRepository.findOpenTaskServeTimes(coupeTexteId, annotatorId, Tache.StatutTache.TERMINEE)
+                    .stream()
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .orElse(null);
+        }
+        return between(served, submittedAt);
+    }
+
+    /**
+     * Same as {@link #elapsed(Long, Long, LocalDateTime)}, for callers that already read the task.
+     *
+     * @param persistedServedAt The task's dateDebut, or null when it was never served.
+     */
+    public Duration elapsed(Long annotatorId, Long coupeTexteId, LocalDateTime submittedAt,
+                            LocalDateTime persistedServedAt) {
+        LocalDateTime served = servedAt.getIfPresent(key(annotatorId, coupeTexteId));
+        return between(served != null ? served : persistedServedAt, submittedAt);
+    }
+
+    /**
+     * Forgets the serve time of a submitted pair and records its time on task, if known.
+     */
+    public void completed(Long datasetId, Long annotatorId, Long coupeTexteId, Duration elapsed) {
+        servedAt.invalidate(key(annotatorId, coupeTexteId));
+        if (elapsed == null) return;
+
+        timer("dataset", datasetId).record(elapsed);
+        timer("annotator", annotatorId).record(elapsed);
+    }
+
+    // Served too long ago (e.g. a task left open for weeks) is not time on task
+    private static Duration between(LocalDateTime served, LocalDateTime submittedAt) {
+        if (served == null || submittedAt.isBefore(served)) return null;
+        Duration elapsed = Duration.between(served, submittedAt);
+        return elapsed.compareTo(MAX_TRACKED_TIME) > 0 ? null : elapsed;
+    }
+
+    private Timer timer(String tag, Long id) {
+        return timers.get(tag + ":" + id, k -> Timer.builder("annotation.labeling.time." + tag)
+                .description("Time from serving a task to submitting its annotation, per " + tag)
+                .tag(tag, String.valueOf(id))
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry));
+    }
+
+    private static String key(Long annotatorId, Long coupeTexteId) {
+        return annotatorId + ":" + coupeTexteId;
+    }
+}
@@ -0,0 +1,96 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.model.UserDatasetProgress;
+import com.hicham.annotationplatformproject1.repository.UserDatasetProgressRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for the last viewed page of each (annotator, dataset).
+ * Reads are served from memory (one database read per key, on first use); changes are coalesced
+ * and written in a single JDBC batch periodically and on shutdown.
+ */
+@Component
+public class UserDatasetProgressBuffer {
+
+    private final UserDatasetProgressRepository userDatasetProgressRepository;
+    private final ActivityLogService activityLogService;
+    private final Map<ProgressKey, Integer> lastPages = new ConcurrentHashMap<>();
+    private final Set<ProgressKey> dirty = ConcurrentHashMap.newKeySet();
+
+    public UserDatasetProgressBuffer(UserDatasetProgressRepository userDatasetProgressRepository,
+                                     ActivityLogService activityLogService) {
+        this.userDatasetProgressRepository = userDatasetProgressRepository;
+        this.activityLogService = activityLogService;
+    }
+
+    /**
+     * Returns the last viewed page for an annotator and dataset (0 when none was recorded).
+     */
+    public int getLastPage(Long userId, Long datasetId) {
+        ProgressKey key = new ProgressKey(userId, datasetId);
+        Integer page = lastPages.get(key);
+        if (page != null) return page;
+
+        int stored = userDatasetProgressRepository.findByUserIdAndDatasetId(userId, datasetId)
+                .map(UserDatasetProgress::getLastPage)
+                .orElse(0);
+        Integer existing = lastPages.putIfAbsent(key, stored);
+        return existing != null ? existing : stored;
+    }
+
+    /**
+     * Records the last viewed page; the row is written on the next flush, and only if it changed.
+     */
+    public void updateLastPage(Long userId, Long datasetId, int page) {
+        ProgressKey key = new ProgressKey(userId, datasetId);
+        Integer previous = lastPages.put(key, page);
+        if (previous == null || previous != page) {
+            dirty.add(key);
+        }
+    }
+
+    /**
+     * Writes all pending changes in one batch. Keys are unmarked before their value is read,
+     * so a concurrent update is either included here or picked up by the next flush.
+     */
+    @Scheduled(fixedDelayString = "${progress.flush.interval-ms:5000}")
+    public void flush() {
+        if (dirty.isEmpty()) return;
+
+        List<ProgressKey> keys = new ArrayList<>(dirty.size());
+        List<long[]> rows = new ArrayList<>(dirty.size());
+        for (ProgressKey key : dirty) {
+            if (!dirty.remove(key)) continue;
+            Integer page = lastPages.get(key);
+            if (page == null) continue;
+            keys.add(key);
+            rows.add(new long[]{key.userId(), key.datasetId(), page});
+        }
+
+        try {
+            userDatasetProgressRepository.upsertLastPages(rows);
+        } catch (Exception e) {
+            dirty.addAll(keys);
+            activityLogService.logActivity(
+                    "PROGRESS_FLUSH_ERROR",
+                    "Failed to flush " + rows.size() + " progress rows, will retry: " + e.getMessage()
+            );
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private record ProgressKey(Long userId, Long datasetId) {
+    }
+}
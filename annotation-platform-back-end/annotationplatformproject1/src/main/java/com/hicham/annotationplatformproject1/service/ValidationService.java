@@ -1,10 +1,12 @@
 package com.hicham.annotationplatformproject1.service;
 
+import com.hicham.annotationplatformproject1.config.CacheNames;
 import com.hicham.annotationplatformproject1.exception.ServiceException;
 import com.hicham.annotationplatformproject1.model.Dataset;
 import com.hicham.annotationplatformproject1.model.Utilisateur;
 import com.hicham.annotationplatformproject1.repository.DatasetRepository;
 import com.hicham.annotationplatformproject1.repository.UtilisateurRepository;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 /**
@@ -12,6 +14,13 @@ import org.springframework.stereotype.Service;
  */
 @Service
 public class ValidationService {
+
+    /**
+     * ID, name and description of a dataset, which never change once it is created.
+     */
+    public record DatasetHeader(Long id, String name, String description) {
+    }
+
     private final DatasetRepository datasetRepository;
     private final UtilisateurRepository utilisateurRepository;
 
@@ -32,6 +41,21 @@ public class ValidationService {
                 .orElseThrow(() -> new ServiceException("Dataset not found with ID: " + datasetId));
     }
 
+    /**
+     * Validates that a dataset exists by ID when only its header is needed; headers are cached.
+     *
+     * @param datasetId The ID of the dataset to validate.
+     * @return The dataset's header.
+     * @throws ServiceException if the dataset is not found.
+     */
+    @Cacheable(cacheNames = CacheNames.DATASET_HEADERS, key = "#datasetId")
+    public DatasetHeader validateDatasetHeader(Long datasetId) {
+        return datasetRepository.findHeaderById(datasetId).stream()
+                .findFirst()
+                .map(row -> new DatasetHeader((Long) row[0], (String) row[1], (String) row[2]))
+                .orElseThrow(() -> new ServiceException("Dataset not found with ID: " + datasetId));
+    }
+
     /**
      * Validates that a user exists and has the ANNOTATOR role.
      *
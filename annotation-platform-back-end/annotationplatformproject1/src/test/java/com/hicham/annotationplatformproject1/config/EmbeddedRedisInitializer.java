@@ -0,0 +1,45 @@
+package com.hicham.annotationplatformproject1.config;
+
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.test.context.support.TestPropertySourceUtils;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+/**
+ * Starts an embedded Redis server on a free port for the test context and switches the caches to it.
+ * Use with {@code @ContextConfiguration(initializers = EmbeddedRedisInitializer.class)}.
+ */
+public class EmbeddedRedisInitializer implements ApplicationContextInitializer<ConfigurableApplicationContext> {
+
+    @Override
+    public void initialize(ConfigurableApplicationContext context) {
+        try {
+            int port;
+            try (ServerSocket socket = new ServerSocket(0)) {
+                port = socket.getLocalPort();
+            }
+            RedisServer server = new RedisServer(port);
+            server.start();
+            context.addApplicationListener(event -> {
+                if (event instanceof ContextClosedEvent) {
+                    try {
+                        server.stop();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            TestPropertySourceUtils.addInlinedPropertiesToEnvironment(context,
+                    "spring.data.redis.host=localhost",
+                    "spring.data.redis.port=" + port,
+                    "spring.cache.type=redis");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
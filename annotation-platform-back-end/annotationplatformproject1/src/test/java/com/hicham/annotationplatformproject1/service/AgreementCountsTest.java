@@ -0,0 +1,78 @@
+package com.hicham.annotationplatformproject1.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgreementCountsTest {
+
+    @Test
+    void cohenKappaOfTwoAnnotators() {
+        // yes/yes 20, yes/no 5, no/yes 10, no/no 15: observed 0.7, expected 0.5
+        AgreementCounts counts = new AgreementCounts(2);
+        long pair = 0;
+        int[][] cells = {{0, 0, 20}, {0, 1, 5}, {1, 0, 10}, {1, 1, 15}};
+        for (int[] cell : cells) {
+            for (int i = 0; i < cell[2]; i++, pair++) {
+                counts.add(pair, 1, cell[0]);
+                counts.add(pair, 2, cell[1]);
+            }
+        }
+
+        long[] table = counts.pairTables.get(new AgreementCounts.AnnotatorPair(1, 2));
+        assertArrayEquals(new long[]{20, 5, 10, 15}, table);
+        assertEquals(0.7, AgreementCounts.observedAgreement(table, 2), 1e-9);
+        assertEquals(0.4, AgreementCounts.cohenKappa(table, 2), 1e-9);
+        assertFalse(counts.add(0, 2, 1)); // Already counted
+        assertEquals(100, counts.annotations);
+    }
+
+    @Test
+    void fleissKappaOfManyAnnotators() {
+        // Fleiss (1971) style example: 10 text pairs, 14 annotators each, 5 classes, kappa ~0.210
+        int[][] classCounts = {
+                {0, 0, 0, 0, 14}, {0, 2, 6, 4, 2}, {0, 0, 3, 5, 6}, {0, 3, 9, 2, 0}, {2, 2, 8, 1, 1},
+                {7, 7, 0, 0, 0}, {3, 2, 6, 3, 0}, {2, 5, 3, 2, 2}, {6, 5, 2, 1, 0}, {0, 2, 2, 3, 7}
+        };
+        AgreementCounts counts = new AgreementCounts(5);
+        for (int pair = 0; pair < classCounts.length; pair++) {
+            long annotator = 1;
+            for (int classIndex = 0; classIndex < 5; classIndex++) {
+                for (int i = 0; i < classCounts[pair][classIndex]; i++) {
+                    counts.add(pair, annotator++, classIndex);
+                }
+            }
+        }
+
+        assertEquals(10, counts.overlappingPairs);
+        assertEquals(0.210, counts.fleissKappa(), 1e-3);
+    }
+
+    @Test
+    void incrementalCountsMatchTheForkJoinRecount() {
+        Random random = new Random(42);
+        int classCount = 4;
+        List<Object[]> rows = new ArrayList<>();
+        AgreementCounts incremental = new AgreementCounts(classCount);
+        for (long pair = 0; pair < 5000; pair++) {
+            for (long annotator = 1; annotator <= 5; annotator++) {
+                if (random.nextInt(3) == 0) continue;
+                int classIndex = random.nextInt(classCount);
+                rows.add(new Object[]{pair, annotator, 100L + classIndex});
+                incremental.add(pair, annotator, classIndex);
+            }
+        }
+        Collections.shuffle(rows, random);
+        Map<Long, Integer> classIndex = Map.of(100L, 0, 101L, 1, 102L, 2, 103L, 3);
+
+        AgreementCounts recounted = AgreementCounts.compute(classCount, rows, classIndex);
+        assertTrue(recounted.sameAs(incremental));
+        assertEquals(incremental.fleissKappa(), recounted.fleissKappa(), 1e-9);
+
+        incremental.add(5000, 1, 0);
+        incremental.add(5000, 2, 0);
+        assertFalse(recounted.sameAs(incremental));
+    }
+}
@@ -0,0 +1,55 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.config.AnnotationConstraintInitializer;
+import com.hicham.annotationplatformproject1.model.CoupeTexte;
+import com.hicham.annotationplatformproject1.repository.AnnotationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * A table that lost its (pair, annotator) constraint to duplicates gets them removed and the constraint
+ * back on startup.
+ */
+@SpringBootTest
+@Import(TestFixtures.class)
+class AnnotationConstraintTest {
+
+    @Autowired
+    private AnnotationConstraintInitializer annotationConstraintInitializer;
+    @Autowired
+    private AnnotationRepository annotationRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Test
+    void duplicatesAreRemovedBeforeTheConstraintIsRestored() {
+        TestFixtures.LabeledDataset dataset = fixtures.createDataset("constraint", 2, "yes;no");
+        CoupeTexte pair = dataset.pairs().get(0);
+        Long annotatorId = fixtures.createAnnotator("constraint-annotator");
+        Long yes = dataset.classes().get(0).getId();
+        Long no = dataset.classes().get(1).getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        jdbcTemplate.execute("ALTER TABLE annotation DROP CONSTRAINT uk_annotation_pair_annotator");
+        assertTrue(annotationRepository.insertAnnotation(pair.getId(), annotatorId, yes, dataset.id(), now, 5L));
+        assertTrue(annotationRepository.insertAnnotation(pair.getId(), annotatorId, no, dataset.id(), now, 7L));
+        assertEquals(2, annotationRepository.count());
+
+        annotationConstraintInitializer.ensureUniqueConstraint();
+
+        assertEquals(1, annotationRepository.count());
+        assertEquals(yes, annotationRepository.findAll().get(0).getClasseChoisie().getId()); // The first is kept
+        assertThrows(DataIntegrityViolationException.class, () ->
+                annotationRepository.insertAnnotation(pair.getId(), annotatorId, no, dataset.id(), now, 7L));
+    }
+}
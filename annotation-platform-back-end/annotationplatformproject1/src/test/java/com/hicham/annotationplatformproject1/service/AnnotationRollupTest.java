@@ -0,0 +1,121 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.dto.AnnotationRequest;
+import com.hicham.annotationplatformproject1.dto.AnnotationTrendPointDTO;
+import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.model.ClassePersistante;
+import com.hicham.annotationplatformproject1.model.CoupeTexte;
+import com.hicham.annotationplatformproject1.model.StatisticsSnapshot;
+import com.hicham.annotationplatformproject1.repository.AnnotationRepository;
+import com.hicham.annotationplatformproject1.repository.StatisticsSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Trends are served from the rollups: annotations that predate them are backfilled once, resuming
+ * after a partial backfill, new ones are added by the transaction that saves them, and empty buckets
+ * come back as zeros.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:rollup_db;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+        + "NON_KEYWORDS=TIMESTAMP,USER,VALUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1")
+@Import(TestFixtures.class)
+class AnnotationRollupTest {
+
+    @Autowired
+    private AnnotationRollupService annotationRollupService;
+    @Autowired
+    private AnnotationService annotationService;
+    @Autowired
+    private AnnotationRepository annotationRepository;
+    @Autowired
+    private StatisticsSnapshotRepository statisticsSnapshotRepository;
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Test
+    void trendsAreServedFromBackfilledAndSavedRollups() {
+        TestFixtures.LabeledDataset dataset = fixtures.createDataset("rollups", 5, "yes;no");
+        List<CoupeTexte> pairs = dataset.pairs();
+        List<ClassePersistante> classes = dataset.classes();
+        Long first = fixtures.createAnnotator("rollup-1");
+        Long second = fixtures.createAnnotator("rollup-2");
+
+        // Annotations written before the rollups existed
+        insertLegacy(pairs.get(0), first, classes.get(0), LocalDateTime.of(2024, 1, 15, 10, 20), 30L);
+        insertLegacy(pairs.get(1), first, classes.get(1), LocalDateTime.of(2024, 1, 15, 10, 40), 50L);
+        long firstPageId = annotationRepository.findMaxId();
+        insertLegacy(pairs.get(0), second, classes.get(0), LocalDateTime.of(2024, 1, 15, 11, 5), null);
+        insertLegacy(pairs.get(2), second, classes.get(1), LocalDateTime.of(2024, 2, 3, 9, 0), 10L);
+        long upToId = annotationRepository.findMaxId();
+
+        // A backfill that stopped after its first page resumes on the next startup
+        annotationRollupService.backfill(firstPageId);
+        StatisticsSnapshot progress = statisticsSnapshotRepository.findById("annotation-rollup-backfill").orElseThrow();
+        progress.setPayload("{\"upToId\":" + upToId + ",\"afterId\":" + firstPageId + "}");
+        statisticsSnapshotRepository.save(progress);
+        annotationRollupService.captureBackfillBound();
+        annotationRollupService.backfillIfNeeded();
+        annotationRollupService.backfill(upToId); // Already backfilled: nothing is counted twice
+
+        List<AnnotationTrendPointDTO> hours = trend(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 15), "HOUR", dataset.id());
+        assertEquals(24, hours.size());
+        assertEquals("2024-01-15T00:00", hours.get(0).getBucket());
+        for (int hour = 0; hour < 24; hour++) {
+            long expected = hour == 10 ? 2 : hour == 11 ? 1 : 0;
+            assertEquals(expected, hours.get(hour).getCount(), "hour " + hour);
+        }
+        assertEquals(80, hours.get(10).getTotalDurationSeconds());
+        assertEquals(40.0, hours.get(10).getAverageDurationSeconds());
+        assertEquals(1, hours.get(10).getDistinctAnnotators());
+        assertNull(hours.get(11).getAverageDurationSeconds());
+        assertNull(hours.get(12).getAverageDurationSeconds());
+
+        List<AnnotationTrendPointDTO> days = trend(LocalDate.of(2024, 1, 14), LocalDate.of(2024, 1, 16), "day", dataset.id());
+        assertEquals(List.of(0L, 3L, 0L), days.stream().map(AnnotationTrendPointDTO::getCount).toList());
+        assertEquals(2, days.get(1).getDistinctAnnotators());
+
+        List<AnnotationTrendPointDTO> months = trend(LocalDate.of(2024, 1, 20), LocalDate.of(2024, 3, 1), "MONTH", dataset.id());
+        assertEquals(List.of("2024-01-01T00:00", "2024-02-01T00:00", "2024-03-01T00:00"),
+                months.stream().map(AnnotationTrendPointDTO::getBucket).toList());
+        assertEquals(List.of(3L, 1L, 0L), months.stream().map(AnnotationTrendPointDTO::getCount).toList());
+
+        // New annotations reach the rollups with the transaction that saves them
+        ApiResponse<String> saved = annotationService.saveAnnotation(
+                new AnnotationRequest(first, pairs.get(3).getId(), classes.get(0).getId()));
+        assertTrue(saved.isSuccess(), saved.getMessage());
+        LocalDate today = LocalDate.now();
+        assertEquals(1, trend(today, today, "DAY", dataset.id()).get(0).getCount());
+        assertEquals(1, annotationRollupService.countByDay(today, today).get(today));
+        assertEquals(3, trend(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 15), "DAY", dataset.id()).get(0).getCount());
+    }
+
+    @Test
+    void trendRejectsInvalidRanges() {
+        LocalDate day = LocalDate.of(2024, 1, 15);
+        assertFalse(annotationRollupService.getTrend(day, day.minusDays(1), "DAY", null, null).isSuccess());
+        assertFalse(annotationRollupService.getTrend(day, day, "WEEK", null, null).isSuccess());
+        assertFalse(annotationRollupService.getTrend(day, day.plusYears(2), "HOUR", null, null).isSuccess());
+        assertTrue(annotationRollupService.getTrend(day, day.plusYears(2), "DAY", null, null).isSuccess());
+    }
+
+    private void insertLegacy(CoupeTexte pair, Long annotatorId, ClassePersistante classe,
+                              LocalDateTime annotatedAt, Long durationInSeconds) {
+        assertTrue(annotationRepository.insertAnnotation(pair.getId(), annotatorId, classe.getId(),
+                pair.getDataset().getId(), annotatedAt, durationInSeconds));
+    }
+
+    private List<AnnotationTrendPointDTO> trend(LocalDate from, LocalDate to, String granularity, Long datasetId) {
+        ApiResponse<List<AnnotationTrendPointDTO>> response =
+                annotationRollupService.getTrend(from, to, granularity, datasetId, null);
+        assertTrue(response.isSuccess(), response.getMessage());
+        return response.getData();
+    }
+}
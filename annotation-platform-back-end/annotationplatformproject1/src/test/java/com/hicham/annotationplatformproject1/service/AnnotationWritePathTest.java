@@ -0,0 +1,153 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.dto.AnnotationRequest;
+import com.hicham.annotationplatformproject1.dto.AssignmentRequest;
+import com.hicham.annotationplatformproject1.model.ClassePersistante;
+import com.hicham.annotationplatformproject1.model.CoupeTexte;
+import com.hicham.annotationplatformproject1.model.Tache;
+import com.hicham.annotationplatformproject1.repository.TacheRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The single-annotation write path stays within a fixed number of JDBC statements per label.
+ * The previous path issued eight statements per label.
+ */
+@SpringBootTest
+@Import(TestFixtures.class)
+class AnnotationWritePathTest {
+
+    private static final int LABELS = 300;
+    private static final int MAX_STATEMENTS_PER_LABEL = 4; // insert annotation, close task, rollups, activity log
+
+    @Autowired
+    private AnnotationService annotationService;
+    @Autowired
+    private TaskAssignmentService taskAssignmentService;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private TacheRepository tacheRepository;
+    @Autowired
+    private TimeOnTaskTracker timeOnTaskTracker;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void savingALabelTakesAConstantSmallNumberOfStatements() {
+        TestFixtures.LabeledDataset dataset = fixtures.createDataset("write-path", LABELS, "yes;no");
+        List<CoupeTexte> pairs = dataset.pairs();
+        List<ClassePersistante> classes = dataset.classes();
+        Long annotatorId = fixtures.createAnnotator("write-path-annotator");
+
+        AssignmentRequest assignment = new AssignmentRequest();
+        assignment.setDatasetId(dataset.id());
+        assignment.setAnnotatorIds(List.of(annotatorId));
+        assertTrue(taskAssignmentService.assignTextPairs(dataset.id(), assignment).isSuccess());
+        timeOnTaskTracker.markServed(annotatorId, tacheRepository.findByAnnotateurId(annotatorId).stream()
+                .map(task -> new Long[]{task.getId(), task.getCoupeTexte().getId()})
+                .toList());
+
+        Long classId = classes.get(0).getId();
+        annotationService.saveAnnotation(new AnnotationRequest(annotatorId, pairs.get(0).getId(), classId)); // Warms the label cache
+
+        StatementCounter.start();
+        for (int i = 1; i < LABELS; i++) {
+            ApiResponse<String> response = annotationService.saveAnnotation(
+                    new AnnotationRequest(annotatorId, pairs.get(i).getId(), classId));
+            assertTrue(response.isSuccess(), response.getMessage());
+        }
+        long statements = StatementCounter.stop();
+
+        double perLabel = (double) statements / (LABELS - 1);
+        assertTrue(perLabel <= MAX_STATEMENTS_PER_LABEL, "Statements per label: " + perLabel);
+
+        assertEquals(LABELS, tacheRepository.findByAnnotateurId(annotatorId).stream()
+                .filter(task -> task.getStatut() == Tache.StatutTache.TERMINEE)
+                .count());
+        assertEquals(LABELS, meterRegistry.get("annotation.labeling.time.annotator")
+                .tag("annotator", String.valueOf(annotatorId)).timer().count());
+
+        ApiResponse<String> duplicate = annotationService.saveAnnotation(
+                new AnnotationRequest(annotatorId, pairs.get(1).getId(), classes.get(1).getId()));
+        assertFalse(duplicate.isSuccess());
+        assertEquals("This text pair has already been annotated by this user", duplicate.getMessage());
+    }
+
+    /**
+     * Counts statements prepared on the test thread through a proxied DataSource.
+     */
+    static class StatementCounter {
+        private static final AtomicLong count = new AtomicLong();
+        private static volatile Thread counted;
+
+        static void start() {
+            count.set(0);
+            counted = Thread.currentThread();
+        }
+
+        static long stop() {
+            counted = null;
+            return count.get();
+        }
+
+        static DataSource wrap(DataSource dataSource) {
+            return (DataSource) Proxy.newProxyInstance(
+                    DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(dataSource, method, args);
+                        return result instanceof Connection connection ? wrap(connection) : result;
+                    });
+        }
+
+        private static Connection wrap(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (counted == Thread.currentThread()
+                                && (name.equals("prepareStatement") || name.equals("createStatement") || name.equals("prepareCall"))) {
+                            count.incrementAndGet();
+                        }
+                        return invoke(connection, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class StatementCounterConfig {
+        @Bean
+        static BeanPostProcessor statementCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? StatementCounter.wrap(dataSource) : bean;
+                }
+            };
+        }
+    }
+}
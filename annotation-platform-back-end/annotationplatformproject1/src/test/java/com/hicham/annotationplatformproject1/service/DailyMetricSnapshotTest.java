@@ -0,0 +1,69 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.dto.DailyMetricsDTO;
+import com.hicham.annotationplatformproject1.model.DailyMetricSnapshot;
+import com.hicham.annotationplatformproject1.repository.DailyMetricSnapshotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Day-over-day baselines and the metrics history read the daily rows; closing a day after midnight
+ * replaces the baseline.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:daily_metrics_db;MODE=MySQL;DATABASE_TO_LOWER=TRUE;"
+        + "NON_KEYWORDS=TIMESTAMP,USER,VALUE;LOCK_TIMEOUT=10000;DB_CLOSE_DELAY=-1")
+class DailyMetricSnapshotTest {
+
+    @Autowired
+    private DailyMetricSnapshotService dailyMetricSnapshotService;
+    @Autowired
+    private DailyMetricSnapshotRepository dailyMetricSnapshotRepository;
+
+    @Test
+    void previousDayAndHistoryReadTheDailyRows() {
+        LocalDate today = LocalDate.now();
+        assertTrue(dailyMetricSnapshotRepository.existsById(today)); // Taken on startup
+        save(today.minusDays(3), 1, 10, 2);
+        save(today.minusDays(1), 2, 10, 4); // The engine knows no dataset: closing the day changes it
+
+        DailyMetricSnapshot previous = dailyMetricSnapshotService.getPreviousDay().orElseThrow();
+        assertEquals(today.minusDays(1), previous.getSnapshotDate());
+        assertEquals(2, previous.getTotalDatasets());
+
+        ApiResponse<List<DailyMetricsDTO>> response = dailyMetricSnapshotService.getHistory(today.minusDays(3), today);
+        assertTrue(response.isSuccess(), response.getMessage());
+        List<DailyMetricsDTO> history = response.getData();
+        assertEquals(List.of(today.minusDays(3).toString(), today.minusDays(1).toString(), today.toString()),
+                history.stream().map(DailyMetricsDTO::getDate).toList()); // Days without a row are omitted
+        assertEquals(20.0, history.get(0).getCompletionRate());
+        assertEquals(40.0, history.get(1).getCompletionRate());
+        assertEquals(0, history.get(1).getAnnotations());
+
+        assertFalse(dailyMetricSnapshotService.getHistory(today, today.minusDays(1)).isSuccess());
+        assertFalse(dailyMetricSnapshotService.getHistory(today.minusYears(11), today).isSuccess());
+
+        // Closing yesterday after midnight replaces the cached baseline
+        dailyMetricSnapshotService.takeSnapshot(today.minusDays(1));
+        DailyMetricSnapshot closed = dailyMetricSnapshotRepository.findById(today.minusDays(1)).orElseThrow();
+        assertNotEquals(2, closed.getTotalDatasets());
+        assertEquals(closed.getTotalDatasets(), dailyMetricSnapshotService.getPreviousDay().orElseThrow().getTotalDatasets());
+    }
+
+    private void save(LocalDate day, long datasets, long tasks, long completed) {
+        DailyMetricSnapshot snapshot = new DailyMetricSnapshot();
+        snapshot.setSnapshotDate(day);
+        snapshot.setTotalDatasets(datasets);
+        snapshot.setActiveAnnotators(1);
+        snapshot.setTotalTasks(tasks);
+        snapshot.setCompletedTasks(completed);
+        snapshot.setTakenAt(day.atTime(23, 59, 59));
+        dailyMetricSnapshotRepository.save(snapshot);
+    }
+}
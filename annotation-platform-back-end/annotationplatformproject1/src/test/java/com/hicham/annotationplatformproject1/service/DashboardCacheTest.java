@@ -0,0 +1,115 @@
+package com.hicham.annotationplatformproject1.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DashboardCacheTest {
+
+    // Moves only when the test advances it
+    private static final class TestClock extends Clock {
+        private volatile long millis;
+
+        void advance(long delta) {
+            millis += delta;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TestClock clock = new TestClock();
+    private final DashboardCache cache = new DashboardCache(true, Duration.ofMillis(100), Duration.ofMillis(400),
+            Duration.ofMinutes(1), 50, null, meterRegistry, clock);
+
+    @AfterEach
+    void shutdown() {
+        cache.shutdown();
+    }
+
+    @Test
+    void staleValuesAreServedWhileRefreshedInTheBackground() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        assertEquals(1, cache.get("statistics", version::incrementAndGet));
+        clock.advance(99);
+        assertEquals(1, cache.get("statistics", version::incrementAndGet)); // Fresh
+
+        clock.advance(1);
+        assertEquals(1, cache.get("statistics", version::incrementAndGet)); // Stale, refresh queued
+        waitFor(() -> version.get() == 2);
+        waitFor(() -> cache.get("statistics", version::incrementAndGet) == 2);
+
+        clock.advance(400);
+        assertEquals(3, cache.get("statistics", version::incrementAndGet)); // Past the hard TTL
+
+        assertTrue(meterRegistry.get("dashboard.cache.requests").tag("result", "stale").counter().count() >= 1);
+        assertEquals(2, meterRegistry.get("dashboard.cache.requests").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    void prewarmRefreshesEntriesBeforeTheyGoStale() throws Exception {
+        AtomicInteger version = new AtomicInteger();
+        cache.get("statistics", version::incrementAndGet);
+        clock.advance(40);
+        cache.prewarm(); // Soft-stale only after the next run: nothing to do
+        assertEquals(1, version.get());
+
+        clock.advance(20);
+        cache.prewarm(); // Would be soft-stale before the next run
+        waitFor(() -> version.get() == 2);
+        assertEquals(2, cache.get("statistics", version::incrementAndGet));
+        assertEquals(0, meterRegistry.get("dashboard.cache.requests").tag("result", "stale").counter().count());
+    }
+
+    @Test
+    void idleEntriesAreDroppedAndDisabledCacheAlwaysComputes() {
+        AtomicInteger version = new AtomicInteger();
+        cache.get("statistics", version::incrementAndGet);
+        clock.advance(Duration.ofMinutes(1).toMillis() + 1);
+        cache.prewarm(); // Not read within the idle timeout
+        assertEquals(2, cache.get("statistics", version::incrementAndGet));
+
+        DashboardCache disabled = new DashboardCache(false, Duration.ofMinutes(1), Duration.ofMinutes(1),
+                Duration.ofMinutes(1), 50, null, meterRegistry, clock);
+        assertEquals(3, disabled.get("statistics", version::incrementAndGet));
+        assertEquals(4, disabled.get("statistics", version::incrementAndGet));
+        disabled.shutdown();
+    }
+
+    // Background refreshes run on the cache's own thread
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out");
+            Thread.sleep(5);
+        }
+    }
+}
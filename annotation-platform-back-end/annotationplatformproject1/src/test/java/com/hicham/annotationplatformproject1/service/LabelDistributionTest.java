@@ -0,0 +1,73 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.dto.AnnotationRequest;
+import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.dto.LabelDistributionDTO;
+import com.hicham.annotationplatformproject1.model.ClassePersistante;
+import com.hicham.annotationplatformproject1.model.CoupeTexte;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Label counters follow the annotation writes, are read without any statement, and come back
+ * identical from a rebuild and from a snapshot.
+ */
+@SpringBootTest
+@Import({AnnotationWritePathTest.StatementCounterConfig.class, TestFixtures.class})
+class LabelDistributionTest {
+
+    @Autowired
+    private LabelDistributionEngine labelDistributionEngine;
+    @Autowired
+    private AnnotationService annotationService;
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Test
+    void distributionIsCountedOnWritesAndReadWithoutQueries() {
+        TestFixtures.LabeledDataset dataset = fixtures.createDataset("label-distribution", 4, "yes;no;maybe");
+        List<CoupeTexte> pairs = dataset.pairs();
+        List<ClassePersistante> classes = dataset.classes();
+        Long first = fixtures.createAnnotator("distribution-1");
+        Long second = fixtures.createAnnotator("distribution-2");
+
+        for (int i = 0; i < 4; i++) {
+            label(first, pairs.get(i), classes.get(i == 3 ? 1 : 0));
+        }
+        label(second, pairs.get(0), classes.get(1));
+
+        AnnotationWritePathTest.StatementCounter.start();
+        ApiResponse<LabelDistributionDTO> response = labelDistributionEngine.getDistribution(dataset.id());
+        assertEquals(0, AnnotationWritePathTest.StatementCounter.stop());
+        assertTrue(response.isSuccess(), response.getMessage());
+
+        LabelDistributionDTO distribution = response.getData();
+        assertEquals(5, distribution.getTotal());
+        assertEquals(List.of("yes", "no", "maybe"),
+                distribution.getClasses().stream().map(LabelDistributionDTO.ClassCount::getNomClasse).toList());
+        assertEquals(List.of(3L, 2L, 0L),
+                distribution.getClasses().stream().map(LabelDistributionDTO.ClassCount::getCount).toList());
+        assertEquals(first, distribution.getAnnotators().get(0).getAnnotatorId());
+        assertArrayEquals(new long[]{3, 1, 0}, distribution.getAnnotators().get(0).getCounts());
+        assertArrayEquals(new long[]{0, 1, 0}, distribution.getAnnotators().get(1).getCounts());
+
+        labelDistributionEngine.rebuild();
+        assertEquals(distribution, labelDistributionEngine.getDistribution(dataset.id()).getData());
+
+        labelDistributionEngine.snapshot();
+        labelDistributionEngine.load(); // Restores the snapshot just taken
+        assertEquals(distribution, labelDistributionEngine.getDistribution(dataset.id()).getData());
+    }
+
+    private void label(Long annotatorId, CoupeTexte pair, ClassePersistante classe) {
+        ApiResponse<String> response = annotationService.saveAnnotation(
+                new AnnotationRequest(annotatorId, pair.getId(), classe.getId()));
+        assertTrue(response.isSuccess(), response.getMessage());
+    }
+}
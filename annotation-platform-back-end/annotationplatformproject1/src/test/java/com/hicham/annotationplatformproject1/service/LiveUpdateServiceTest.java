@@ -0,0 +1,69 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.event.DatasetCreatedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LiveUpdateServiceTest {
+
+    // Records its sends; a stalled one blocks in send until interrupted
+    private static final class TestEmitter extends SseEmitter {
+        final boolean stalled;
+        final LinkedBlockingQueue<SseEventBuilder> sent = new LinkedBlockingQueue<>();
+        final CountDownLatch interrupted = new CountDownLatch(1);
+
+        TestEmitter(boolean stalled) {
+            this.stalled = stalled;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (stalled) {
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw new InterruptedIOException();
+                }
+            }
+            sent.add(builder);
+        }
+    }
+
+    @Test
+    void aStalledClientIsDroppedWithoutDelayingTheOthers() throws Exception {
+        Deque<TestEmitter> emitters = new ArrayDeque<>();
+        emitters.add(new TestEmitter(true));
+        emitters.add(new TestEmitter(false));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        LiveUpdateService liveUpdateService = new LiveUpdateService(2, 100, meterRegistry, emitters::poll);
+        try {
+            TestEmitter stalled = (TestEmitter) liveUpdateService.subscribeAdmin(); // Blocks on "connected"
+            TestEmitter healthy = (TestEmitter) liveUpdateService.subscribeAdmin();
+            assertNotNull(healthy.sent.poll(5, TimeUnit.SECONDS)); // connected
+            assertEquals(2, meterRegistry.get("live.connections").gauge().value());
+
+            Thread.sleep(300); // Past the send timeout
+            liveUpdateService.onDatasetCreated(new DatasetCreatedEvent(1L, "live", 10, 2));
+
+            assertNotNull(healthy.sent.poll(5, TimeUnit.SECONDS)); // dataset-created
+            assertTrue(stalled.interrupted.await(5, TimeUnit.SECONDS));
+            assertEquals(1, meterRegistry.get("live.connections").gauge().value());
+            assertEquals(1, meterRegistry.get("live.connections.dropped").counter().count());
+            assertTrue(stalled.sent.isEmpty());
+        } finally {
+            liveUpdateService.shutdown();
+        }
+    }
+}
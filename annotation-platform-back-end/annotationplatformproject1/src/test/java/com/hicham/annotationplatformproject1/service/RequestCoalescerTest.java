@@ -0,0 +1,110 @@
+package com.hicham.annotationplatformproject1.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RequestCoalescer coalescer = new RequestCoalescer(meterRegistry, Duration.ofSeconds(5));
+
+    @Test
+    void concurrentIdenticalCallsShareOneComputation() throws Exception {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> coalescer.execute("statistics", () -> {
+                    computations.incrementAndGet();
+                    await(release);
+                    return new Object();
+                })));
+            }
+            // Every caller has either started the computation or joined it
+            long deadline = System.currentTimeMillis() + 5000;
+            while (joined("statistics") < CALLERS - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            Object first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<Object> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, computations.get());
+            assertEquals(CALLERS - 1, joined("statistics"));
+            assertEquals(1, meterRegistry.get("requests.computed").tag("operation", "statistics").counter().count());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Nothing is kept once the computation ends
+        coalescer.execute("statistics", computations::incrementAndGet);
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void differentParametersAndFailuresAreNotShared() {
+        assertEquals("0:10", coalescer.execute("datasets", () -> "0:10", 0, 10));
+        assertEquals("1:10", coalescer.execute("datasets", () -> "1:10", 1, 10));
+
+        IllegalStateException failure = assertThrows(IllegalStateException.class,
+                () -> coalescer.execute("datasets", () -> {
+                    throw new IllegalStateException("database down");
+                }, 0, 10));
+        assertEquals("database down", failure.getMessage());
+        assertEquals("0:10", coalescer.execute("datasets", () -> "0:10", 0, 10));
+        assertEquals(0, meterRegistry.get("requests.in-flight").gauge().value());
+    }
+
+    @Test
+    void waitingCallersGiveUpAfterTheTimeout() throws Exception {
+        RequestCoalescer impatient = new RequestCoalescer(meterRegistry, Duration.ofMillis(50));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> computing = executor.submit(() -> impatient.execute("histogram", () -> {
+                started.countDown();
+                await(release);
+                return "done";
+            }));
+            started.await();
+
+            IllegalStateException timeout = assertThrows(IllegalStateException.class,
+                    () -> impatient.execute("histogram", () -> "not computed twice"));
+            assertEquals("Timed out waiting for histogram", timeout.getMessage());
+
+            release.countDown();
+            assertEquals("done", computing.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private double joined(String operation) {
+        Counter counter = meterRegistry.find("requests.coalesced").tag("operation", operation).counter();
+        return counter != null ? counter.count() : 0;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
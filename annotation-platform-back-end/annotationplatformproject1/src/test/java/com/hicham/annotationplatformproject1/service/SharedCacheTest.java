@@ -0,0 +1,187 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.config.CacheNames;
+import com.hicham.annotationplatformproject1.config.EmbeddedRedisInitializer;
+import com.hicham.annotationplatformproject1.config.TwoLevelCacheManager;
+import com.hicham.annotationplatformproject1.dto.*;
+import com.hicham.annotationplatformproject1.model.ClassePersistante;
+import com.hicham.annotationplatformproject1.model.CoupeTexte;
+import com.hicham.annotationplatformproject1.model.Dataset;
+import com.hicham.annotationplatformproject1.model.Utilisateur;
+import com.hicham.annotationplatformproject1.repository.DatasetRepository;
+import com.hicham.annotationplatformproject1.repository.UtilisateurRepository;
+import com.hicham.annotationplatformproject1.security.CustomUserDetailsService;
+import com.hicham.annotationplatformproject1.security.StreamTicketService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.test.context.ContextConfiguration;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Cached reads against a real (embedded) Redis: values survive the JSON round trip, writes evict them
+ * and evictions reach the local tier of other nodes.
+ */
+@SpringBootTest
+@ContextConfiguration(initializers = EmbeddedRedisInitializer.class)
+@Import(TestFixtures.class)
+class SharedCacheTest {
+
+    @Autowired
+    private AnnotatorService annotatorService;
+    @Autowired
+    private DatasetService datasetService;
+    @Autowired
+    private AnnotationService annotationService;
+    @Autowired
+    private TaskAssignmentService taskAssignmentService;
+    @Autowired
+    private CacheInvalidationService cacheInvalidationService;
+    @Autowired
+    private LabelSetCache labelSetCache;
+    @Autowired
+    private DatasetRepository datasetRepository;
+    @Autowired
+    private UtilisateurRepository utilisateurRepository;
+    @Autowired
+    private TestFixtures fixtures;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+    @Autowired
+    private ValidationService validationService;
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+    @Autowired
+    private StreamTicketService streamTicketService;
+
+    @Test
+    void cachedReadsRoundTripThroughRedisAndAreEvictedByWrites() {
+        assertInstanceOf(TwoLevelCacheManager.class, cacheManager);
+
+        Long annotatorId = fixtures.createAnnotator("cache-annotator-1");
+        ApiResponse<List<AnnotatorResponse>> annotators = annotatorService.getAllAnnotators();
+        assertEquals(annotators, annotatorService.getAllAnnotators());
+        assertTrue(meterRegistry.get("cache.gets").tag("name", CacheNames.ANNOTATORS).tag("result", "hit")
+                .functionCounter().count() >= 1);
+
+        fixtures.createAnnotator("cache-annotator-2");
+        assertEquals(annotators.getData().size() + 1, annotatorService.getAllAnnotators().getData().size());
+
+        TestFixtures.LabeledDataset dataset = fixtures.createDataset("cached", 4, "yes;no");
+        List<CoupeTexte> pairs = dataset.pairs();
+        List<ClassePersistante> classes = dataset.classes();
+        Long datasetId = dataset.id();
+
+        ApiResponse<DatasetsResponseDTO> datasets = datasetService.getAllDatasets(0, 10);
+        assertEquals(datasets, datasetService.getAllDatasets(0, 10));
+        ApiResponse<DatasetDetailsDTO> details = datasetService.getDatasetDetails(datasetId);
+        assertEquals(details, datasetService.getDatasetDetails(datasetId));
+        assertEquals(List.of("yes", "no"), details.getData().getClasses());
+
+        AssignmentRequest assignment = new AssignmentRequest();
+        assignment.setDatasetId(datasetId);
+        assignment.setAnnotatorIds(List.of(annotatorId));
+        assertTrue(taskAssignmentService.assignTextPairs(datasetId, assignment).isSuccess());
+        assertEquals(0, datasetService.getDatasetDetails(datasetId).getData().getNumberOfAnnotatedCoupeTextes());
+        assertTrue(annotationService.saveAnnotation(
+                new AnnotationRequest(annotatorId, pairs.get(0).getId(), classes.get(0).getId())).isSuccess());
+        assertEquals(0, datasetService.getDatasetDetails(datasetId).getData().getNumberOfAnnotatedCoupeTextes());
+
+        cacheInvalidationService.evictChangedProgress();
+        assertEquals(1, datasetService.getDatasetDetails(datasetId).getData().getNumberOfAnnotatedCoupeTextes());
+        assertEquals(25.0, datasetService.getAllDatasets(0, 10).getData().getDatasets().stream()
+                .filter(dto -> dto.getId().equals(datasetId)).findFirst().orElseThrow().getProgress());
+
+        labelSetCache.invalidateAll(); // Local tier only: the next read comes from Redis
+        List<LabelSetCache.Label> labelSet = labelSetCache.getLabelSet(datasetId);
+        assertEquals(List.of(new LabelSetCache.Label(classes.get(0).getId(), "yes", datasetId),
+                new LabelSetCache.Label(classes.get(1).getId(), "no", datasetId)), labelSet);
+    }
+
+    @Test
+    void hotLookupsAreServedLocallyAndEvictionsReachOtherNodes() throws Exception {
+        fixtures.createAnnotator("cache-user");
+        Utilisateur user = utilisateurRepository.findByUsername("cache-user").orElseThrow();
+        user.setPassword("initial");
+        utilisateurRepository.save(user);
+        assertEquals("initial", userDetailsService.loadUserByUsername("cache-user").getPassword());
+        user.setPassword("changed");
+        utilisateurRepository.save(user);
+        assertEquals("initial", userDetailsService.loadUserByUsername("cache-user").getPassword());
+        assertTrue(meterRegistry.get("cache.gets").tags("name", CacheNames.USERS, "tier", "local", "result", "hit")
+                .functionCounter().count() >= 1);
+        assertTrue(stringRedisTemplate.keys(CacheNames.USERS + "*").isEmpty()); // Password hashes stay in process
+
+        Dataset dataset = new Dataset();
+        dataset.setName("header");
+        dataset.setDescription("cached header");
+        Long datasetId = datasetRepository.save(dataset).getId();
+        assertEquals("cached header", datasetService.getDatasetById(datasetId).getData().getDescription());
+        assertEquals("header", validationService.validateDatasetHeader(datasetId).name());
+        assertTrue(meterRegistry.get("cache.gets").tags("name", CacheNames.DATASET_HEADERS, "tier", "local", "result", "hit")
+                .functionCounter().count() >= 1);
+
+        // A second node sharing the same Redis
+        RedisCacheManager otherRemote = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig().serializeValuesWith(
+                        RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer())))
+                .build();
+        TwoLevelCacheManager otherNode = new TwoLevelCacheManager(otherRemote, List.of(), List.of(CacheNames.USERS),
+                100, Duration.ofMinutes(1), stringRedisTemplate, new SimpleMeterRegistry());
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(otherNode, new ChannelTopic(TwoLevelCacheManager.INVALIDATION_CHANNEL));
+        container.afterPropertiesSet();
+        container.start();
+        try {
+            assertNull(otherNode.getCache(CacheNames.USERS).get("cache-user")); // Not shared
+            otherNode.getCache(CacheNames.USERS).put("cache-user", "loaded on the other node");
+            @SuppressWarnings("unchecked")
+            com.github.benmanes.caffeine.cache.Cache<String, Object> otherLocal =
+                    (com.github.benmanes.caffeine.cache.Cache<String, Object>) otherNode.getCache(CacheNames.USERS).getNativeCache();
+            assertNotNull(otherLocal.getIfPresent("cache-user"));
+
+            userDetailsService.evict("cache-user");
+            long deadline = System.currentTimeMillis() + 2000;
+            while (otherLocal.getIfPresent("cache-user") != null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertNull(otherLocal.getIfPresent("cache-user"));
+            assertEquals("changed", userDetailsService.loadUserByUsername("cache-user").getPassword());
+        } finally {
+            container.stop();
+            container.destroy();
+        }
+    }
+
+    @Test
+    void streamTicketsAreRedeemedOnceOnAnyNode() {
+        StreamTicketService otherNode = new StreamTicketService(stringRedisTemplate, Duration.ofSeconds(60));
+        String ticket = streamTicketService.issue("stream-user");
+        assertEquals("stream-user", otherNode.redeem(ticket));
+        assertNull(streamTicketService.redeem(ticket));
+        assertNull(otherNode.redeem("unknown"));
+    }
+}
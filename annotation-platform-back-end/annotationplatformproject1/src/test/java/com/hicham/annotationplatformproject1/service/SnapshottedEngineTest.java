@@ -0,0 +1,93 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshottedEngineTest {
+
+    // Counts events; its database holds a fixed count
+    private static final class CountingEngine extends SnapshottedEngine<AtomicLong, Long> {
+        long stored;
+        Runnable duringLoad = () -> {
+        };
+
+        CountingEngine() {
+            super("counting", Long.class, "COUNTING", "counting", null, null, new ObjectMapper(),
+                    new NoTransactionManager(), 60_000);
+        }
+
+        void onEvent() {
+            update(AtomicLong::incrementAndGet);
+        }
+
+        long count() {
+            return state().get();
+        }
+
+        @Override
+        protected AtomicLong loadState() {
+            AtomicLong loaded = new AtomicLong(stored);
+            duringLoad.run();
+            return loaded;
+        }
+
+        @Override
+        protected AtomicLong restore(Long snapshot) {
+            return new AtomicLong(snapshot);
+        }
+
+        @Override
+        protected Long toSnapshot(AtomicLong state) {
+            return state.get();
+        }
+    }
+
+    private static final class NoTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+
+    @Test
+    void eventsDuringARebuildAreReplayedOntoTheRebuiltState() {
+        CountingEngine engine = new CountingEngine();
+        engine.onEvent(); // Not loaded yet: ignored
+        assertFalse(engine.isReady());
+
+        engine.stored = 10;
+        engine.rebuild();
+        engine.onEvent();
+        assertEquals(11, engine.count());
+
+        // Two events committed after the rebuild read the database
+        engine.stored = 11;
+        engine.duringLoad = () -> {
+            engine.onEvent();
+            engine.onEvent();
+        };
+        engine.rebuild();
+        assertEquals(13, engine.count());
+
+        engine.duringLoad = () -> {
+        };
+        engine.onEvent(); // No rebuild running: applied once
+        assertEquals(14, engine.count());
+    }
+}
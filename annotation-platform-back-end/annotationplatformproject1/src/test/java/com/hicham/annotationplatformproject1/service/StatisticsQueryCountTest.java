@@ -0,0 +1,81 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.dto.ApiResponse;
+import com.hicham.annotationplatformproject1.dto.AssignmentRequest;
+import com.hicham.annotationplatformproject1.dto.StatisticsDTO;
+import com.hicham.annotationplatformproject1.repository.DatasetRepository;
+import com.hicham.annotationplatformproject1.repository.UtilisateurRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The database path of the dashboard (used while the statistics engine is not loaded) must cost the
+ * same number of queries however many datasets and annotators exist.
+ */
+@SpringBootTest(properties = {
+        "statistics.engine.enabled=false",
+        "dashboard.cache.enabled=false"
+})
+@Import({AnnotationWritePathTest.StatementCounterConfig.class, TestFixtures.class})
+class StatisticsQueryCountTest {
+
+    private static final int PAIRS_PER_DATASET = 10;
+
+    @Autowired
+    private StatisticsService statisticsService;
+    @Autowired
+    private TaskAssignmentService taskAssignmentService;
+    @Autowired
+    private DatasetRepository datasetRepository;
+    @Autowired
+    private UtilisateurRepository utilisateurRepository;
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Test
+    void dashboardQueryCountDoesNotGrowWithDatasetsOrAnnotators() {
+        createAssignedDatasets(2, 2);
+        statisticsService.getStatistics(); // Loads the recent activities once
+        long small = countStatements();
+
+        createAssignedDatasets(30, 20);
+        long large = countStatements();
+
+        assertEquals(small, large, "Dashboard queries with 2 datasets vs 32 datasets");
+
+        StatisticsDTO stats = statisticsService.getStatistics().getData();
+        assertEquals(32, stats.getDatasetsProgress().size());
+        assertEquals(PAIRS_PER_DATASET, stats.getDatasetsProgress().get(0).getPending());
+        assertEquals(5, stats.getTopAnnotators().size());
+    }
+
+    private long countStatements() {
+        AnnotationWritePathTest.StatementCounter.start();
+        ApiResponse<StatisticsDTO> response = statisticsService.getStatistics();
+        long statements = AnnotationWritePathTest.StatementCounter.stop();
+        assertTrue(response.isSuccess(), response.getMessage());
+        return statements;
+    }
+
+    private void createAssignedDatasets(int datasets, int annotators) {
+        List<Long> annotatorIds = new ArrayList<>();
+        for (int i = 0; i < annotators; i++) {
+            annotatorIds.add(fixtures.createAnnotator("dashboard-annotator-" + utilisateurRepository.count()));
+        }
+
+        for (int d = 0; d < datasets; d++) {
+            Long datasetId = fixtures.createDataset("dashboard-" + datasetRepository.count(), PAIRS_PER_DATASET, null).id();
+            AssignmentRequest assignment = new AssignmentRequest();
+            assignment.setDatasetId(datasetId);
+            assignment.setAnnotatorIds(annotatorIds);
+            assertTrue(taskAssignmentService.assignTextPairs(datasetId, assignment).isSuccess());
+        }
+    }
+}
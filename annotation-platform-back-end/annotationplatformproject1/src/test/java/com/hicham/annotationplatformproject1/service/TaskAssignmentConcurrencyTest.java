@@ -0,0 +1,156 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.dto.AssignmentRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test: admins assigning the same dataset at the same time, while the sweeper reclaims overdue
+ * tasks and annotators are unassigned, must never give a pair two open tasks nor lose one.
+ */
+@SpringBootTest
+@Import(TestFixtures.class)
+class TaskAssignmentConcurrencyTest {
+
+    private static final int PAIRS = 3000;
+    private static final int ANNOTATORS = 6;
+    private static final int CONCURRENT_ASSIGNMENTS = 6;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private TaskAssignmentService taskAssignmentService;
+    @Autowired
+    private TaskReclaimService taskReclaimService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TestFixtures fixtures;
+
+    @Test
+    void concurrentAssignmentsGiveEachPairExactlyOneTask() throws Exception {
+        Long datasetId = fixtures.createDataset("concurrency", PAIRS, null).id();
+        AssignmentRequest request = request(datasetId, createAnnotators("stress-annotator-", ANNOTATORS), null);
+
+        List<Callable<Object>> assignments = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_ASSIGNMENTS; i++) {
+            assignments.add(() -> taskAssignmentService.assignTextPairs(datasetId, request));
+        }
+        runTogether(assignments);
+
+        assertEquals(PAIRS, openTasks(datasetId));
+        assertConsistent(datasetId);
+        assertEquals(0L, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM coupe_texte WHERE dataset_id = ? AND assigned = false", Long.class, datasetId));
+    }
+
+    @Test
+    void assignmentsRacingReclaimAndUnassignmentKeepOneOpenTaskPerPair() throws Exception {
+        Long datasetId = fixtures.createDataset("reclaim-race", PAIRS, null).id();
+        List<Long> overdueAnnotators = createAnnotators("overdue-annotator-", ANNOTATORS / 2);
+        List<Long> annotators = createAnnotators("race-annotator-", ANNOTATORS / 2);
+
+        // Every pair starts on an overdue task, so the sweeper returns them to the pool while they are reassigned
+        assertTrue(taskAssignmentService.assignTextPairs(datasetId,
+                request(datasetId, overdueAnnotators, LocalDateTime.now().minusMinutes(1))).isSuccess());
+
+        AssignmentRequest request = request(datasetId, annotators, null);
+        List<Callable<Object>> workers = new ArrayList<>();
+        for (int i = 0; i < CONCURRENT_ASSIGNMENTS; i++) {
+            workers.add(() -> {
+                for (int round = 0; round < ROUNDS; round++) {
+                    taskAssignmentService.assignTextPairs(datasetId, request);
+                }
+                return null;
+            });
+        }
+        workers.add(() -> {
+            for (int round = 0; round < ROUNDS; round++) {
+                taskReclaimService.reclaimOverdueTasks();
+            }
+            return null;
+        });
+        workers.add(() -> {
+            for (int round = 0; round < ROUNDS; round++) {
+                taskAssignmentService.unassignAnnotatorsFromDataset(datasetId, annotators.subList(0, 1));
+            }
+            return null;
+        });
+        runTogether(workers);
+
+        assertConsistent(datasetId);
+        assertTrue(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM tache WHERE dataset_id = ? AND annotateur_id IS NULL", Long.class, datasetId) > 0);
+    }
+
+    private List<Long> createAnnotators(String prefix, int count) {
+        List<Long> annotatorIds = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            annotatorIds.add(fixtures.createAnnotator(prefix + i));
+        }
+        return annotatorIds;
+    }
+
+    private AssignmentRequest request(Long datasetId, List<Long> annotatorIds, LocalDateTime deadline) {
+        AssignmentRequest request = new AssignmentRequest();
+        request.setDatasetId(datasetId);
+        request.setAnnotatorIds(annotatorIds);
+        request.setDeadline(deadline);
+        return request;
+    }
+
+    private void runTogether(List<Callable<Object>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        CyclicBarrier start = new CyclicBarrier(tasks.size());
+        List<Future<Object>> results = new ArrayList<>();
+        for (Callable<Object> task : tasks) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        try {
+            for (Future<Object> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long openTasks(Long datasetId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM tache WHERE dataset_id = ? AND annotateur_id IS NOT NULL", Long.class, datasetId);
+    }
+
+    /**
+     * A pair is in the pool exactly when no annotator holds a task on it, and never held twice.
+     */
+    private void assertConsistent(Long datasetId) {
+        Long pairsWithSeveralTasks = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT coupe_texte_id FROM tache WHERE dataset_id = ? " +
+                        "AND annotateur_id IS NOT NULL GROUP BY coupe_texte_id HAVING COUNT(*) > 1) duplicates",
+                Long.class, datasetId);
+        Long assignedWithoutTask = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM coupe_texte c WHERE c.dataset_id = ? AND c.assigned = true AND NOT EXISTS (" +
+                        "SELECT 1 FROM tache t WHERE t.coupe_texte_id = c.id AND t.annotateur_id IS NOT NULL)",
+                Long.class, datasetId);
+        Long pooledWithTask = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM coupe_texte c WHERE c.dataset_id = ? AND c.assigned = false AND EXISTS (" +
+                        "SELECT 1 FROM tache t WHERE t.coupe_texte_id = c.id AND t.annotateur_id IS NOT NULL)",
+                Long.class, datasetId);
+
+        assertEquals(0L, pairsWithSeveralTasks);
+        assertEquals(0L, assignedWithoutTask);
+        assertEquals(0L, pooledWithTask);
+    }
+}
@@ -0,0 +1,89 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.event.UserCreatedEvent;
+import com.hicham.annotationplatformproject1.model.ClassePersistante;
+import com.hicham.annotationplatformproject1.model.CoupeTexte;
+import com.hicham.annotationplatformproject1.model.Dataset;
+import com.hicham.annotationplatformproject1.model.Utilisateur;
+import com.hicham.annotationplatformproject1.repository.CoupeTexteRepository;
+import com.hicham.annotationplatformproject1.repository.DatasetRepository;
+import com.hicham.annotationplatformproject1.repository.UtilisateurRepository;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datasets, text pairs and annotators that Spring tests run against. Add with {@code @Import(TestFixtures.class)}.
+ */
+@TestComponent
+public class TestFixtures {
+
+    /**
+     * A dataset with its text pairs ("left i" / "right i") and classes, in creation order.
+     */
+    record LabeledDataset(Dataset dataset, List<CoupeTexte> pairs, List<ClassePersistante> classes) {
+        Long id() {
+            return dataset.getId();
+        }
+    }
+
+    private final DatasetRepository datasetRepository;
+    private final CoupeTexteRepository coupeTexteRepository;
+    private final UtilisateurRepository utilisateurRepository;
+    private final ClassPersistanteService classPersistanteService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public TestFixtures(DatasetRepository datasetRepository,
+                        CoupeTexteRepository coupeTexteRepository,
+                        UtilisateurRepository utilisateurRepository,
+                        ClassPersistanteService classPersistanteService,
+                        ApplicationEventPublisher eventPublisher) {
+        this.datasetRepository = datasetRepository;
+        this.coupeTexteRepository = coupeTexteRepository;
+        this.utilisateurRepository = utilisateurRepository;
+        this.classPersistanteService = classPersistanteService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Creates a dataset with the given number of text pairs.
+     *
+     * @param classNames Classes separated by ';', or null for none.
+     */
+    LabeledDataset createDataset(String name, int pairCount, String classNames) {
+        Dataset dataset = new Dataset();
+        dataset.setName(name);
+        dataset = datasetRepository.save(dataset);
+
+        List<CoupeTexte> pairs = new ArrayList<>(pairCount);
+        for (int i = 0; i < pairCount; i++) {
+            CoupeTexte pair = new CoupeTexte();
+            pair.setText1("left " + i);
+            pair.setText2("right " + i);
+            pair.setDataset(dataset);
+            pairs.add(pair);
+        }
+        coupeTexteRepository.saveAll(pairs);
+        List<ClassePersistante> classes = classNames != null
+                ? classPersistanteService.createClasses(classNames, dataset)
+                : List.of();
+        return new LabeledDataset(dataset, pairs, classes);
+    }
+
+    /**
+     * Creates an active annotator and publishes its creation like the annotator service does.
+     */
+    Long createAnnotator(String username) {
+        Utilisateur annotator = new Utilisateur();
+        annotator.setUsername(username);
+        annotator.setPrenom("Test");
+        annotator.setNom(username);
+        annotator.setRole(Utilisateur.Role.ANNOTATOR);
+        annotator = utilisateurRepository.save(annotator);
+        eventPublisher.publishEvent(new UserCreatedEvent(annotator.getId(), "Test " + username,
+                annotator.getRole(), annotator.isActive(), annotator.getCreatedAt()));
+        return annotator.getId();
+    }
+}
@@ -0,0 +1,83 @@
+package com.hicham.annotationplatformproject1.service;
+
+import com.hicham.annotationplatformproject1.model.CoupeTexte;
+import com.hicham.annotationplatformproject1.model.Dataset;
+import com.hicham.annotationplatformproject1.repository.CoupeTexteRepository;
+import com.hicham.annotationplatformproject1.repository.DatasetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pairs backfilled after ingestion get the same cost features as pairs computed at ingestion.
+ */
+@SpringBootTest
+class TextStatisticsTest {
+
+    private static final String[][] TEXTS = {
+            {"one  two\tthree\nfour", "  leading and trailing  "},
+            {"emoji 😀 counts as two units", ""},
+            {null, "\t\n"},
+            {"a", "b c"},
+    };
+
+    @Autowired
+    private TextStatisticsService textStatisticsService;
+    @Autowired
+    private DatasetRepository datasetRepository;
+    @Autowired
+    private CoupeTexteRepository coupeTexteRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void backfilledPairsMatchIngestedOnes() {
+        Dataset dataset = new Dataset();
+        dataset.setName("text statistics");
+        dataset = datasetRepository.save(dataset);
+
+        List<CoupeTexte> legacy = new ArrayList<>();
+        List<CoupeTexte> ingested = new ArrayList<>();
+        for (String[] texts : TEXTS) {
+            legacy.add(pair(dataset, texts));
+            ingested.add(pair(dataset, texts));
+        }
+        coupeTexteRepository.saveAll(legacy); // No features, as before they existed
+        textStatisticsService.computeStatistics(ingested);
+
+        Long datasetId = dataset.getId();
+        Long updated = new TransactionTemplate(transactionManager).execute(status ->
+                textStatisticsService.backfillStatistics(datasetId));
+        assertEquals(TEXTS.length, updated);
+
+        for (int i = 0; i < TEXTS.length; i++) {
+            Long id = legacy.get(i).getId();
+            assertEquals(ingested.get(i).getCharCount(), jdbcTemplate.queryForObject(
+                    "SELECT char_count FROM coupe_texte WHERE id = ?", Integer.class, id), "chars of pair " + i);
+            assertEquals(ingested.get(i).getTokenCount(), jdbcTemplate.queryForObject(
+                    "SELECT token_count FROM coupe_texte WHERE id = ?", Integer.class, id), "tokens of pair " + i);
+        }
+        assertEquals(7, ingested.get(0).getTokenCount()); // Runs of any whitespace separate tokens
+        Long updatedAgain = new TransactionTemplate(transactionManager).execute(status ->
+                textStatisticsService.backfillStatistics(datasetId));
+        assertEquals(0L, updatedAgain);
+    }
+
+    private CoupeTexte pair(Dataset dataset, String[] texts) {
+        CoupeTexte pair = new CoupeTexte();
+        pair.setText1(texts[0]);
+        pair.setText2(texts[1]);
+        pair.setDataset(dataset);
+        return pair;
+    }
+}